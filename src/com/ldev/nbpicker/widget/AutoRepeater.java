@@ -0,0 +1,112 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+/**
+ * Steps a value by a step size, once when a button is tapped, or repeatedly
+ * at a given speed while it is longpressed.
+ *
+ * The steps are scheduled through a {@link NumberPicker.Scheduler}, so the
+ * repetition can be driven by a virtual clock.
+ */
+class AutoRepeater implements Runnable {
+
+	/**
+	 * What is repeated.
+	 */
+	interface Target {
+		void repeat(int step);
+	}
+
+	private final Target mTarget;
+	private NumberPicker.Scheduler mScheduler;
+	private long mSpeed = 200;
+	private int mStepSize = 1;
+	private int mStep = 0;
+
+	AutoRepeater(Target target, NumberPicker.Scheduler scheduler) {
+		mTarget = target;
+		mScheduler = scheduler;
+	}
+
+	void setScheduler(NumberPicker.Scheduler scheduler) {
+		cancel();
+		mScheduler = scheduler;
+	}
+
+	void setSpeed(long speed) {
+		mSpeed = speed;
+	}
+
+	long getSpeed() {
+		return mSpeed;
+	}
+
+	/**
+	 * Sets the value added or removed by each step, 1 by default.
+	 */
+	void setStepSize(int stepSize) {
+		mStepSize = stepSize;
+	}
+
+	boolean isRunning() {
+		return mStep != 0;
+	}
+
+	/**
+	 * Steps once, e.g. when a button is tapped.
+	 *
+	 * @param direction
+	 *            1 to add the step size, -1 to remove it
+	 */
+	void step(int direction) {
+		mTarget.repeat(direction * mStepSize);
+	}
+
+	/**
+	 * Starts repeating the steps, the first one being done as soon as
+	 * possible.
+	 *
+	 * @param direction
+	 *            1 to add the step size, -1 to remove it
+	 */
+	void start(int direction) {
+		// A previous repetition may still be scheduled
+		mScheduler.removeCallbacks(this);
+		mStep = direction * mStepSize;
+		mScheduler.postDelayed(this, 0);
+	}
+
+	void cancel() {
+		mStep = 0;
+		mScheduler.removeCallbacks(this);
+	}
+
+	@Override
+	public void run() {
+		if (0 != mStep) {
+			mTarget.repeat(mStep);
+			// the target may have cancelled the repetition
+			if (0 != mStep) {
+				mScheduler.postDelayed(this, mSpeed);
+			}
+		}
+	}
+}
@@ -0,0 +1,342 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import java.text.DateFormatSymbols;
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * A view for selecting a date, and optionally a time, made of NumberPickers.
+ *
+ * Changing the year or the month only adjusts the range of the day picker:
+ * the day is clamped to the length of the month instead of being reset.
+ */
+public class DateTimePicker extends LinearLayout implements NumberPicker.OnChangedListener {
+
+	/**
+	 * The callback interface used to indicate the date or the time has been
+	 * adjusted.
+	 */
+	public interface OnChangedListener {
+		/**
+		 * Called once per user action, whatever the number of fields it
+		 * changed.
+		 *
+		 * @param picker
+		 *            The DateTimePicker associated with this listener.
+		 * @param year
+		 *            The year.
+		 * @param month
+		 *            The month, from 0 (january) to 11 (december).
+		 * @param day
+		 *            The day of the month, from 1.
+		 * @param hour
+		 *            The hour of the day, from 0 to 23.
+		 * @param minute
+		 *            The minute, from 0 to 59.
+		 */
+		void onChanged(DateTimePicker picker, int year, int month, int day,
+				int hour, int minute);
+	}
+
+	private static final LayoutParams mParams = new LayoutParams(0, LayoutParams.WRAP_CONTENT, 1f);
+
+	/**
+	 * Default range of the years.
+	 */
+	private static final int START_YEAR = 1900;
+	private static final int END_YEAR = 2100;
+
+	/**
+	 * Length of the months of the common and leap years.
+	 */
+	private static final int[][] MONTH_LENGTHS = new int[][] {
+			{ 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 },
+			{ 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 } };
+
+	private final NumberPicker mYearPicker;
+	private final NumberPicker mMonthPicker;
+	private final NumberPicker mDayPicker;
+	private final NumberPicker mHourPicker;
+	private final NumberPicker mMinutePicker;
+
+	private OnChangedListener mListener;
+
+	/**
+	 * Create a new date time picker, set to the current date and time.
+	 *
+	 * @param context
+	 *            the application environment
+	 */
+	public DateTimePicker(Context context) {
+		this(context, null);
+	}
+
+	/**
+	 * Create a new date time picker, set to the current date and time.
+	 *
+	 * @param context
+	 *            the application environment
+	 * @param attrs
+	 *            a collection of attributes
+	 */
+	public DateTimePicker(Context context, AttributeSet attrs) {
+		super(context, attrs);
+		mYearPicker = new NumberPicker(context);
+		mMonthPicker = new NumberPicker(context);
+		mDayPicker = new NumberPicker(context);
+		mHourPicker = new NumberPicker(context);
+		mMinutePicker = new NumberPicker(context);
+
+		// the clock of the device may be set outside of the default years
+		Calendar now = Calendar.getInstance();
+		int year = Math.max(START_YEAR, Math.min(END_YEAR,
+				now.get(Calendar.YEAR)));
+		int month = now.get(Calendar.MONTH);
+		int length = getMonthLength(year, month);
+		mYearPicker.setRange(START_YEAR, END_YEAR);
+		mYearPicker.setCurrent(year);
+		// months are numbered from 1, so that typing 3 selects march
+		mMonthPicker.setRange(1, 12, getMonthLabels(null));
+		mMonthPicker.setCurrent(month + 1);
+		mDayPicker.setRange(1, length);
+		mDayPicker.setCurrent(Math.min(length, now.get(Calendar.DAY_OF_MONTH)));
+		mHourPicker.setMinDigits(2);
+		mHourPicker.setRange(0, 23);
+		mHourPicker.setCurrent(now.get(Calendar.HOUR_OF_DAY));
+		mHourPicker.setCircularity(true);
+		mMinutePicker.setMinDigits(2);
+		mMinutePicker.setRange(0, 59);
+		mMinutePicker.setCurrent(now.get(Calendar.MINUTE));
+		mMinutePicker.setCircularity(true);
+
+		NumberPicker[] pickers = new NumberPicker[] { mYearPicker,
+				mMonthPicker, mDayPicker, mHourPicker, mMinutePicker };
+		for (int i = 0; i < pickers.length; i++) {
+			pickers[i].setOnChangeListener(this);
+			super.addView(pickers[i], i, mParams);
+		}
+	}
+
+	/**
+	 * Returns the number of days of a month.
+	 *
+	 * @param year
+	 *            the year (gregorian calendar)
+	 * @param month
+	 *            the month, from 0 (january) to 11 (december)
+	 */
+	public static int getMonthLength(int year, int month) {
+		boolean leap = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+		return MONTH_LENGTHS[leap ? 1 : 0][month];
+	}
+
+	private static String[] getMonthLabels(Locale locale) {
+		DateFormatSymbols symbols = (locale == null) ? new DateFormatSymbols()
+				: new DateFormatSymbols(locale);
+		String[] labels = new String[12];
+		System.arraycopy(symbols.getShortMonths(), 0, labels, 0, 12);
+		return labels;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		super.setEnabled(enabled);
+		mYearPicker.setEnabled(enabled);
+		mMonthPicker.setEnabled(enabled);
+		mDayPicker.setEnabled(enabled);
+		mHourPicker.setEnabled(enabled);
+		mMinutePicker.setEnabled(enabled);
+	}
+
+	public void setOnChangeListener(OnChangedListener listener) {
+		mListener = listener;
+	}
+
+	/**
+	 * Sets if the hour and minute pickers are shown, or only the date ones.
+	 *
+	 * @param visible
+	 *            true to show the time pickers (default)
+	 */
+	public void setTimeVisible(boolean visible) {
+		int visibility = visible ? View.VISIBLE : View.GONE;
+		mHourPicker.setVisibility(visibility);
+		mMinutePicker.setVisibility(visibility);
+	}
+
+	/**
+	 * Sets the locale used for the month names and the digits.
+	 *
+	 * @param locale
+	 *            the locale, or null for the default one
+	 */
+	public void setLocale(Locale locale) {
+		int month = mMonthPicker.getCurrent();
+		mMonthPicker.setRange(1, 12, getMonthLabels(locale));
+		mMonthPicker.setCurrent(month);
+		mYearPicker.setLocale(locale);
+		mDayPicker.setLocale(locale);
+		mHourPicker.setLocale(locale);
+		mMinutePicker.setLocale(locale);
+	}
+
+	/**
+	 * Set the range of the years allowed. The current year is clamped to it.
+	 *
+	 * @param start
+	 *            the first year (inclusive)
+	 * @param end
+	 *            the last year (inclusive)
+	 */
+	public void setYearRange(int start, int end) {
+		mYearPicker.updateRange(start, end);
+		updateDayRange();
+	}
+
+	/**
+	 * Set the current date.
+	 *
+	 * @param year
+	 *            the year, within the year range
+	 * @param month
+	 *            the month, from 0 (january) to 11 (december)
+	 * @param day
+	 *            the day of the month, from 1
+	 * @throws IllegalArgumentException
+	 *             when one of the values is out of its range
+	 */
+	public void setDate(int year, int month, int day) {
+		if (day < 1 || month < 0 || month > 11
+				|| day > getMonthLength(year, month)) {
+			throw new IllegalArgumentException("invalid date");
+		}
+		mYearPicker.setCurrent(year);
+		mMonthPicker.setCurrent(month + 1);
+		updateDayRange();
+		mDayPicker.setCurrent(day);
+	}
+
+	/**
+	 * Set the current time.
+	 *
+	 * @param hour
+	 *            the hour of the day, from 0 to 23
+	 * @param minute
+	 *            the minute, from 0 to 59
+	 * @throws IllegalArgumentException
+	 *             when one of the values is out of its range
+	 */
+	public void setTime(int hour, int minute) {
+		mHourPicker.setCurrent(hour);
+		mMinutePicker.setCurrent(minute);
+	}
+
+	/**
+	 * Sets the speed at which the values will scroll when the +/- buttons are
+	 * longpressed
+	 *
+	 * @param speed
+	 *            The speed (in milliseconds) at which the values will scroll
+	 *            default 200ms
+	 */
+	public void setSpeed(long speed) {
+		mYearPicker.setSpeed(speed);
+		mMonthPicker.setSpeed(speed);
+		mDayPicker.setSpeed(speed);
+		mHourPicker.setSpeed(speed);
+		mMinutePicker.setSpeed(speed);
+	}
+
+	public int getYear() {
+		return mYearPicker.getCurrent();
+	}
+
+	/**
+	 * @return the month, from 0 (january) to 11 (december)
+	 */
+	public int getMonth() {
+		return mMonthPicker.getCurrent() - 1;
+	}
+
+	public int getDayOfMonth() {
+		return mDayPicker.getCurrent();
+	}
+
+	public int getHour() {
+		return mHourPicker.getCurrent();
+	}
+
+	public int getMinute() {
+		return mMinutePicker.getCurrent();
+	}
+
+	@Override
+	public void onChanged(NumberPicker picker, int oldVal, int newVal) {
+		if (picker == mYearPicker || picker == mMonthPicker) {
+			updateDayRange();
+		}
+		if (null != mListener) {
+			mListener.onChanged(this, getYear(), getMonth(), getDayOfMonth(),
+					getHour(), getMinute());
+		}
+	}
+
+	/**
+	 * Adjusts the range of the day picker to the current month, clamping the
+	 * current day if needed.
+	 */
+	private void updateDayRange() {
+		mDayPicker.updateRange(1, getMonthLength(getYear(), getMonth()));
+	}
+
+	// disabled some methods
+	@Override
+	public void addView(View child) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void addView(View child, int index) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void addView(View child, int width, int height) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void addView(View child, ViewGroup.LayoutParams params) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void addView(View child, int index, ViewGroup.LayoutParams params) {
+		throw new UnsupportedOperationException();
+	}
+}
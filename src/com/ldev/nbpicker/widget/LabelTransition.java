@@ -0,0 +1,216 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+import android.widget.TextView;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Slides the old label of a NumberPicker out and the new one in, in place of
+ * its text field.
+ *
+ * The labels are rendered once into bitmaps, kept in a small cache, so a frame
+ * only draws two bitmaps instead of laying out and drawing text. No layer is
+ * used: the content moves on every frame, so a layer would be redrawn on every
+ * frame as well.
+ *
+ * The time is read from the scheduler of the picker, so a virtual clock can
+ * drive the transition. The bitmaps are recycled when they are replaced and
+ * when the picker is detached from its window.
+ */
+class LabelTransition {
+
+	/**
+	 * Number of label bitmaps kept.
+	 */
+	private static final int CACHE_SIZE = 8;
+
+	private final View mHost;
+	private final TextView mText;
+	private NumberPicker.Scheduler mScheduler;
+
+	private long mDuration;
+	private long mStartTime;
+	private boolean mRunning;
+	private int mDirection;
+	private Bitmap mFrom;
+	private Bitmap mTo;
+
+	private final LinkedHashMap<String, Bitmap> mBitmaps = new LinkedHashMap<String, Bitmap>(
+			CACHE_SIZE, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Bitmap> eldest) {
+			if (size() > CACHE_SIZE) {
+				// may still be drawn by the running transition
+				if (eldest.getValue() != mFrom && eldest.getValue() != mTo) {
+					eldest.getValue().recycle();
+				}
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/**
+	 * @param host
+	 *            the view drawing the transition
+	 * @param text
+	 *            the text field whose labels are animated
+	 * @param scheduler
+	 *            the scheduler whose clock times the transition
+	 */
+	LabelTransition(View host, TextView text,
+			NumberPicker.Scheduler scheduler) {
+		mHost = host;
+		mText = text;
+		mScheduler = scheduler;
+	}
+
+	void setScheduler(NumberPicker.Scheduler scheduler) {
+		cancel();
+		mScheduler = scheduler;
+	}
+
+	void setDuration(long duration) {
+		mDuration = duration;
+		if (duration <= 0) {
+			cancel();
+		}
+	}
+
+	long getDuration() {
+		return mDuration;
+	}
+
+	boolean isRunning() {
+		return mRunning;
+	}
+
+	/**
+	 * Starts sliding from the label from to the label to. A running
+	 * transition is replaced.
+	 *
+	 * @param direction
+	 *            positive if the value increases, negative otherwise
+	 */
+	void start(String from, String to, int direction) {
+		int width = mText.getWidth();
+		int height = mText.getHeight();
+		if (mDuration <= 0 || width <= 0 || height <= 0 || from.equals(to)) {
+			cancel();
+			return;
+		}
+		mFrom = getBitmap(from, width, height);
+		mTo = getBitmap(to, width, height);
+		mDirection = (direction < 0) ? -1 : 1;
+		mStartTime = mScheduler.uptimeMillis();
+		mRunning = true;
+		mHost.invalidate();
+	}
+
+	/**
+	 * Stops the running transition, if any: the text field is drawn again.
+	 */
+	void cancel() {
+		if (mRunning) {
+			mRunning = false;
+			mFrom = null;
+			mTo = null;
+			mHost.invalidate();
+		}
+	}
+
+	/**
+	 * Stops the running transition and recycles the cached bitmaps, e.g. when
+	 * the host is detached from its window.
+	 */
+	void release() {
+		cancel();
+		for (Bitmap bitmap : mBitmaps.values()) {
+			bitmap.recycle();
+		}
+		mBitmaps.clear();
+	}
+
+	/**
+	 * Draws the transition in place of the text field, in the canvas of the
+	 * host.
+	 *
+	 * @return false if the transition is over, and the text field must be
+	 *         drawn instead.
+	 */
+	boolean draw(Canvas canvas) {
+		float progress = (float) (mScheduler.uptimeMillis() - mStartTime)
+				/ mDuration;
+		if (progress >= 1) {
+			cancel();
+			return false;
+		}
+		int height = mText.getHeight();
+		float offset = mDirection * progress * height;
+
+		int save = canvas.save();
+		canvas.translate(mText.getLeft(), mText.getTop());
+		Drawable background = mText.getBackground();
+		if (background != null) {
+			background.draw(canvas);
+		}
+		canvas.clipRect(0, 0, mText.getWidth(), height);
+		canvas.drawBitmap(mFrom, 0, -offset, null);
+		canvas.drawBitmap(mTo, 0, mDirection * height - offset, null);
+		canvas.restoreToCount(save);
+
+		mHost.invalidate();
+		return true;
+	}
+
+	/**
+	 * Returns the bitmap of label, rendering it if it is not cached. A cached
+	 * bitmap of another size is replaced, and recycled unless the running
+	 * transition draws it.
+	 */
+	Bitmap getBitmap(String label, int width, int height) {
+		Bitmap bitmap = mBitmaps.get(label);
+		if (bitmap != null && bitmap.getWidth() == width
+				&& bitmap.getHeight() == height) {
+			return bitmap;
+		}
+		if (bitmap != null && bitmap != mFrom && bitmap != mTo) {
+			bitmap.recycle();
+		}
+		bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+		Paint paint = new Paint(mText.getPaint());
+		paint.setColor(mText.getCurrentTextColor());
+		paint.setTextAlign(Paint.Align.CENTER);
+		float baseline = (height - paint.ascent() - paint.descent()) / 2;
+		new Canvas(bitmap).drawText(label, width / 2f, baseline, paint);
+		mBitmaps.put(label, bitmap);
+		return bitmap;
+	}
+}
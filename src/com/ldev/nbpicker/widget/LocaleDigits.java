@@ -0,0 +1,199 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import java.text.DecimalFormatSymbols;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * The digits, grouping separator and minus sign of a locale, to write and
+ * read integers without going through a NumberFormat.
+ *
+ * The tables are built once per locale (see {@link #get(Locale)}), then
+ * formatting and parsing do not allocate anything.
+ */
+final class LocaleDigits {
+
+	/**
+	 * Returned by the parse methods when the text is not a number.
+	 */
+	static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+	private static final char[] ASCII_DIGITS = new char[] { '0', '1', '2',
+			'3', '4', '5', '6', '7', '8', '9' };
+
+	private static final HashMap<Locale, LocaleDigits> sCache = new HashMap<Locale, LocaleDigits>();
+
+	/**
+	 * The digits of the locale, from zero to nine.
+	 */
+	private final char[] mDigits;
+
+	/**
+	 * Chars typed digits may be made of: the ASCII digits, and the locale ones
+	 * if they are different.
+	 */
+	private final char[] mAcceptedChars;
+
+	private final char mZero;
+	private final char mGroupingSeparator;
+	private final char mMinusSign;
+
+	private LocaleDigits(Locale locale) {
+		DecimalFormatSymbols symbols = new DecimalFormatSymbols(locale);
+		mZero = symbols.getZeroDigit();
+		mGroupingSeparator = symbols.getGroupingSeparator();
+		mMinusSign = symbols.getMinusSign();
+
+		mDigits = new char[10];
+		for (int i = 0; i < 10; i++) {
+			mDigits[i] = (char) (mZero + i);
+		}
+		if (mZero == '0') {
+			mAcceptedChars = ASCII_DIGITS;
+		} else {
+			mAcceptedChars = new char[20];
+			System.arraycopy(mDigits, 0, mAcceptedChars, 0, 10);
+			System.arraycopy(ASCII_DIGITS, 0, mAcceptedChars, 10, 10);
+		}
+	}
+
+	/**
+	 * Returns the digits of locale.
+	 *
+	 * @param locale
+	 *            the locale, the default one if null
+	 */
+	static LocaleDigits get(Locale locale) {
+		if (locale == null) {
+			locale = Locale.getDefault();
+		}
+		synchronized (sCache) {
+			LocaleDigits digits = sCache.get(locale);
+			if (digits == null) {
+				digits = new LocaleDigits(locale);
+				sCache.put(locale, digits);
+			}
+			return digits;
+		}
+	}
+
+	/**
+	 * Returns the chars a number may be typed with.
+	 */
+	char[] getAcceptedChars() {
+		return mAcceptedChars;
+	}
+
+	/**
+	 * Returns the value of the digit c (locale or ASCII one), or -1 if c is not
+	 * a digit.
+	 */
+	int digit(char c) {
+		int d = c - mZero;
+		if (d >= 0 && d <= 9) {
+			return d;
+		}
+		d = c - '0';
+		return (d >= 0 && d <= 9) ? d : -1;
+	}
+
+	/**
+	 * Writes value with the locale digits at the end of buffer. The buffer
+	 * must have room for 11 chars.
+	 *
+	 * @return the offset of the first char written
+	 */
+	int write(int value, char[] buffer) {
+		return write(value, buffer, 1);
+	}
+
+	/**
+	 * Writes value with the locale digits at the end of buffer, padded with
+	 * the locale zero to at least minDigits digits. The buffer must have room
+	 * for the sign and max(10, minDigits) digits.
+	 *
+	 * @return the offset of the first char written
+	 */
+	int write(int value, char[] buffer, int minDigits) {
+		int pos = buffer.length;
+		// work on negative numbers so that Integer.MIN_VALUE fits
+		int n = (value < 0) ? value : -value;
+		do {
+			buffer[--pos] = mDigits[-(n % 10)];
+			n /= 10;
+		} while (n != 0);
+		while (buffer.length - pos < minDigits) {
+			buffer[--pos] = mDigits[0];
+		}
+		if (value < 0) {
+			buffer[--pos] = mMinusSign;
+		}
+		return pos;
+	}
+
+	/**
+	 * Reads an integer written with ASCII or locale digits, an optional
+	 * leading minus sign and optional grouping separators.
+	 *
+	 * @return the integer, or NOT_A_NUMBER if str is not a number or does not
+	 *         fit in an int.
+	 */
+	long parse(CharSequence str) {
+		final int len = str.length();
+		int i = 0;
+		boolean negative = false;
+		if (len > 0) {
+			char c = str.charAt(0);
+			if (c == mMinusSign || c == '-') {
+				negative = true;
+				i++;
+			} else if (c == '+') {
+				i++;
+			}
+		}
+		long value = 0;
+		int digits = 0;
+		for (; i < len; i++) {
+			char c = str.charAt(i);
+			int d = digit(c);
+			if (d < 0) {
+				if (c == mGroupingSeparator && digits > 0) {
+					continue;
+				}
+				return NOT_A_NUMBER;
+			}
+			value = value * 10 + d;
+			if (value > (long) Integer.MAX_VALUE + 1) {
+				return NOT_A_NUMBER;
+			}
+			digits++;
+		}
+		if (digits == 0) {
+			return NOT_A_NUMBER;
+		}
+		value = negative ? -value : value;
+		if (value > Integer.MAX_VALUE) {
+			return NOT_A_NUMBER;
+		}
+		return value;
+	}
+}
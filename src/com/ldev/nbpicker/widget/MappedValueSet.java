@@ -0,0 +1,440 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Values displayed by a NumberPicker, read from a file mapped in memory. The
+ * values are only decoded when needed, so opening a set of millions of values
+ * is almost immediate and doesn't fill the heap.
+ *
+ * The file is written by {@link #write(String[], File)}. It contains, after a
+ * 16 bytes header (magic number, version, number of values, size of the
+ * values):
+ * <ul>
+ * <li>the offsets of the values, relatively to the first one (count + 1 ints)
+ * </li>
+ * <li>the indexes of the values sorted by their text lower cased with the
+ * English locale, used to find the values starting with a prefix (count
+ * ints)</li>
+ * <li>the levels of minimum indexes: each int of a level is the minimum of
+ * {@link #BLOCK_SIZE} ints of the level below, the first level being the
+ * minimums of the sorted indexes, until a level of one int. They give the
+ * first value displayed among the ones starting with a prefix in
+ * logarithmic time.</li>
+ * <li>the sections of the values (see {@link SectionIndex}): their number,
+ * then the index of the first value and the letter of each section (2 ints
+ * per section), so the sections are known without decoding the values</li>
+ * <li>the values, encoded in UTF-8</li>
+ * </ul>
+ *
+ * Note that the MATCH_CONTAINS and MATCH_FUZZY modes of a NumberPicker index
+ * all the values, so they should only be used with small sets.
+ *
+ * This class is not thread safe: reading values shares a buffer.
+ */
+public class MappedValueSet implements NumberPicker.ValueSet {
+
+	private static final int MAGIC = 0x4E505653; // "NPVS"
+	private static final int VERSION = 3;
+	private static final int HEADER_SIZE = 16;
+
+	/**
+	 * Number of ints of a level summarized by an int of the level above.
+	 */
+	private static final int BLOCK_SIZE = 64;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Number of decoded values kept, indexed by their index modulo the size.
+	 */
+	private static final int CACHE_SIZE = 64;
+
+	private final ByteBuffer mBuffer;
+	private final int mCount;
+	private final int mOffsetsStart;
+	private final int mSortedStart;
+	private final int[] mLevelStarts;
+	private final int mSectionsStart;
+	private final int mSectionCount;
+	private final int mValuesStart;
+
+	private byte[] mBytes = new byte[64];
+	private final String[] mCache = new String[CACHE_SIZE];
+	private final int[] mCacheIndexes = new int[CACHE_SIZE];
+
+	private MappedValueSet(ByteBuffer buffer) throws IOException {
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("not a value set");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("unsupported value set version "
+					+ buffer.getInt(4));
+		}
+		mBuffer = buffer;
+		mCount = buffer.getInt(8);
+		mOffsetsStart = HEADER_SIZE;
+		if (mCount < 0) {
+			throw new IOException("truncated value set");
+		}
+		mSortedStart = mOffsetsStart + 4 * (mCount + 1);
+		int[] sizes = levelSizes(mCount);
+		mLevelStarts = new int[sizes.length];
+		int start = mSortedStart + 4 * mCount;
+		for (int level = 0; level < sizes.length; level++) {
+			mLevelStarts[level] = start;
+			start += 4 * sizes[level];
+		}
+		if ((long) start + 4 > buffer.capacity()) {
+			throw new IOException("truncated value set");
+		}
+		mSectionCount = buffer.getInt(start);
+		mSectionsStart = start + 4;
+		mValuesStart = mSectionsStart + 8 * mSectionCount;
+		if (mSectionCount < 0
+				|| (long) mValuesStart + buffer.getInt(12) > buffer.capacity()) {
+			throw new IOException("truncated value set");
+		}
+		Arrays.fill(mCacheIndexes, -1);
+	}
+
+	/**
+	 * Maps a value set file in memory.
+	 *
+	 * @param file
+	 *            a file written by {@link #write(String[], File)}
+	 * @throws IOException
+	 *             when the file can't be read or is not a value set
+	 */
+	public static MappedValueSet open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new MappedValueSet(buffer);
+		} finally {
+			// the mapping stays valid once the file is closed
+			raf.close();
+		}
+	}
+
+	/**
+	 * Writes a value set file.
+	 *
+	 * @param values
+	 *            the values, in the order they are displayed
+	 * @param file
+	 *            the file to write
+	 * @throws IOException
+	 *             when the file can't be written
+	 */
+	public static void write(String[] values, File file) throws IOException {
+		final int count = values.length;
+		byte[][] encoded = new byte[count][];
+		final String[] keys = new String[count];
+		Integer[] sorted = new Integer[count];
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			encoded[i] = values[i].getBytes(UTF8);
+			keys[i] = values[i].toLowerCase(Locale.ENGLISH);
+			sorted[i] = i;
+			size += encoded[i].length;
+		}
+		Arrays.sort(sorted, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer lhs, Integer rhs) {
+				int c = keys[lhs].compareTo(keys[rhs]);
+				return (c != 0) ? c : lhs.compareTo(rhs);
+			}
+		});
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(count);
+			out.writeInt(size);
+			int offset = 0;
+			for (int i = 0; i < count; i++) {
+				out.writeInt(offset);
+				offset += encoded[i].length;
+			}
+			out.writeInt(offset);
+			int[] level = new int[count];
+			for (int i = 0; i < count; i++) {
+				out.writeInt(sorted[i]);
+				level[i] = sorted[i];
+			}
+			for (int levelSize : levelSizes(count)) {
+				int[] mins = new int[levelSize];
+				for (int i = 0; i < levelSize; i++) {
+					int min = Integer.MAX_VALUE;
+					int end = Math.min(level.length, (i + 1) * BLOCK_SIZE);
+					for (int j = i * BLOCK_SIZE; j < end; j++) {
+						min = Math.min(min, level[j]);
+					}
+					mins[i] = min;
+					out.writeInt(min);
+				}
+				level = mins;
+			}
+			int sections = 0;
+			char previous = 0;
+			for (int i = 0; i < count; i++) {
+				char letter = SectionIndex.getLetter(values[i]);
+				if (i == 0 || letter != previous) {
+					sections++;
+					previous = letter;
+				}
+			}
+			out.writeInt(sections);
+			previous = 0;
+			for (int i = 0; i < count; i++) {
+				char letter = SectionIndex.getLetter(values[i]);
+				if (i == 0 || letter != previous) {
+					out.writeInt(i);
+					out.writeInt(letter);
+					previous = letter;
+				}
+			}
+			for (int i = 0; i < count; i++) {
+				out.write(encoded[i]);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	@Override
+	public int size() {
+		return mCount;
+	}
+
+	@Override
+	public String get(int index) {
+		if (index < 0 || index >= mCount) {
+			throw new IndexOutOfBoundsException("index " + index);
+		}
+		int slot = index % CACHE_SIZE;
+		if (mCacheIndexes[slot] != index) {
+			mCache[slot] = decode(index);
+			mCacheIndexes[slot] = index;
+		}
+		return mCache[slot];
+	}
+
+	/**
+	 * Returns the number of sections of the values, see {@link SectionIndex}.
+	 */
+	int getSectionCount() {
+		return mSectionCount;
+	}
+
+	/**
+	 * Returns the index of the first value of section.
+	 */
+	int getSectionStart(int section) {
+		return mBuffer.getInt(mSectionsStart + 8 * section);
+	}
+
+	/**
+	 * Returns the letter of section.
+	 */
+	char getSectionLetter(int section) {
+		return (char) mBuffer.getInt(mSectionsStart + 8 * section + 4);
+	}
+
+	/**
+	 * Returns whether a value starts with prefix, ignoring case: one binary
+	 * search in the sorted index.
+	 */
+	@Override
+	public boolean hasPrefix(String prefix) {
+		int first = lowerBound(prefix);
+		return first < mCount && sortedKey(first).startsWith(prefix);
+	}
+
+	/**
+	 * Returns the indexes of the values starting with prefix, ignoring case,
+	 * in increasing order. The values starting with prefix are contiguous in
+	 * the sorted index: they are found by two binary searches. The first
+	 * displayed one is then found in the levels of minimum indexes, and the
+	 * others by reading the indexes of the blocks whose minimum may be kept.
+	 */
+	@Override
+	public int[] findPrefix(String prefix, int max) {
+		int first = lowerBound(prefix);
+		int end = prefixEnd(prefix, first);
+		if (max == 1 && first < end) {
+			return new int[] { minIndex(first, end) };
+		}
+
+		int[] found = new int[Math.min(Math.max(0, max), end - first)];
+		int count = 0;
+		for (int position = first; position < end; position++) {
+			if (count == found.length && count > 0
+					&& position % BLOCK_SIZE == 0
+					&& position + BLOCK_SIZE <= end
+					&& entry(0, position / BLOCK_SIZE) >= found[count - 1]) {
+				// no index of this block is kept
+				position += BLOCK_SIZE - 1;
+				continue;
+			}
+			int index = entry(-1, position);
+			if (count == found.length) {
+				if (count == 0 || index >= found[count - 1]) {
+					continue;
+				}
+				count--;
+			}
+			// insertion in the smallest indexes found so far
+			int i = count++;
+			while (i > 0 && found[i - 1] > index) {
+				found[i] = found[i - 1];
+				i--;
+			}
+			found[i] = index;
+		}
+		return found;
+	}
+
+	/**
+	 * Returns the first position of the sorted index whose value is not
+	 * before prefix.
+	 */
+	private int lowerBound(String prefix) {
+		int low = 0;
+		int high = mCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sortedKey(mid).compareTo(prefix) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the end of the positions of the sorted index starting at first
+	 * whose value starts with prefix.
+	 */
+	private int prefixEnd(String prefix, int first) {
+		int low = first;
+		int high = mCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sortedKey(mid).startsWith(prefix)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the minimum index between the positions first and end of the
+	 * sorted index. The ints of partial blocks are read at each level, and the
+	 * full blocks are summarized by the level above.
+	 */
+	private int minIndex(int first, int end) {
+		int min = Integer.MAX_VALUE;
+		for (int level = -1; first < end; level++) {
+			int blockFirst = (first + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			int blockEnd = end / BLOCK_SIZE;
+			if (blockFirst >= blockEnd) {
+				for (int i = first; i < end; i++) {
+					min = Math.min(min, entry(level, i));
+				}
+				break;
+			}
+			for (int i = first; i < blockFirst * BLOCK_SIZE; i++) {
+				min = Math.min(min, entry(level, i));
+			}
+			for (int i = blockEnd * BLOCK_SIZE; i < end; i++) {
+				min = Math.min(min, entry(level, i));
+			}
+			first = blockFirst;
+			end = blockEnd;
+		}
+		return min;
+	}
+
+	/**
+	 * Returns an int of a level of minimum indexes, or of the sorted index
+	 * for level -1.
+	 */
+	private int entry(int level, int i) {
+		int start = (level < 0) ? mSortedStart : mLevelStarts[level];
+		return mBuffer.getInt(start + 4 * i);
+	}
+
+	/**
+	 * Returns the sizes of the levels of minimum indexes of count values.
+	 */
+	private static int[] levelSizes(int count) {
+		int levels = 0;
+		for (int size = count; size > 1; size = (size + BLOCK_SIZE - 1)
+				/ BLOCK_SIZE) {
+			levels++;
+		}
+		int[] sizes = new int[levels];
+		int size = count;
+		for (int level = 0; level < levels; level++) {
+			size = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			sizes[level] = size;
+		}
+		return sizes;
+	}
+
+	private String sortedKey(int position) {
+		return get(entry(-1, position)).toLowerCase(
+				Locale.ENGLISH);
+	}
+
+	private String decode(int index) {
+		int start = mBuffer.getInt(mOffsetsStart + 4 * index);
+		int length = mBuffer.getInt(mOffsetsStart + 4 * (index + 1)) - start;
+		if (mBytes.length < length) {
+			mBytes = new byte[Math.max(length, 2 * mBytes.length)];
+		}
+		for (int i = 0; i < length; i++) {
+			mBytes[i] = mBuffer.get(mValuesStart + start + i);
+		}
+		return new String(mBytes, 0, length, UTF8);
+	}
+}
@@ -0,0 +1,564 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * An index of the n-grams (single chars and bigrams) of a set of labels, used
+ * to find the labels containing, or looking like, a piece of text.
+ *
+ * The index is built once for a set of labels. Each gram is mapped to the
+ * sorted list of the labels it appears in (its postings), with the position
+ * of its first occurrence in each. A contains query only visits the labels in
+ * the postings of all its grams, and a fuzzy query the labels sharing enough
+ * grams with it. Only the best labels asked for are kept, in a bounded heap,
+ * rather than sorting all the candidates. Labels and queries are lower cased
+ * with the English locale, like the prefixes of {@link NumberPicker.ValueSet}.
+ *
+ * This class is not thread safe: queries share scratch buffers.
+ */
+class NGramIndex {
+
+	/**
+	 * Lower cased labels.
+	 */
+	private final String[] mValues;
+
+	/**
+	 * Sorted gram keys.
+	 */
+	private final int[] mKeys;
+
+	/**
+	 * mPostings[mOffsets[i]] to mPostings[mOffsets[i + 1]] are the labels
+	 * containing the gram mKeys[i], and mPositions the position of the first
+	 * occurrence of the gram in each (at most 0xFFFF).
+	 */
+	private final int[] mOffsets;
+	private final int[] mPostings;
+	private final char[] mPositions;
+
+	/**
+	 * Number of distinct grams, and length, of each label.
+	 */
+	private final int[] mGramCounts;
+	private final char[] mLengths;
+
+	// scratch buffers of the queries
+	private final int[] mScores;
+	private final int[] mTouched;
+	private long[] mQueryKeys = new long[16];
+	private int[] mLists = new int[16];
+	private int[] mListOffsets = new int[16];
+	private int[] mCursors = new int[16];
+	private int mQueryGrams;
+	private long[] mHeap = new long[16];
+
+	/**
+	 * Builds the index of values.
+	 *
+	 * @param values
+	 *            the labels to index
+	 */
+	NGramIndex(NumberPicker.ValueSet values) {
+		final int count = values.size();
+		mValues = new String[count];
+		mGramCounts = new int[count];
+		mLengths = new char[count];
+
+		int total = 0;
+		for (int i = 0; i < count; i++) {
+			mValues[i] = values.get(i).toLowerCase(Locale.ENGLISH);
+			mLengths[i] = (char) Math.min(mValues[i].length(), 0xFFFF);
+			total += gramsOf(mValues[i]);
+		}
+
+		// (key, label) pairs sorted by key, then by label
+		long[] pairs = new long[total];
+		int p = 0;
+		for (int i = 0; i < count; i++) {
+			String value = mValues[i];
+			for (int j = 0, len = value.length(); j < len; j++) {
+				pairs[p++] = pair(value.charAt(j), i);
+				if (j + 1 < len && value.charAt(j) != 0) {
+					pairs[p++] = pair(bigram(value.charAt(j),
+							value.charAt(j + 1)), i);
+				}
+			}
+		}
+		Arrays.sort(pairs);
+
+		// remove the duplicates and count the distinct keys
+		int distinct = 0;
+		int unique = 0;
+		for (int i = 0; i < total; i++) {
+			if (i > 0 && pairs[i] == pairs[i - 1]) {
+				continue;
+			}
+			if (unique == 0 || keyOf(pairs[i]) != keyOf(pairs[unique - 1])) {
+				distinct++;
+			}
+			pairs[unique++] = pairs[i];
+		}
+
+		mKeys = new int[distinct];
+		mOffsets = new int[distinct + 1];
+		mPostings = new int[unique];
+		mPositions = new char[unique];
+		int k = -1;
+		for (int i = 0; i < unique; i++) {
+			int key = keyOf(pairs[i]);
+			if (k < 0 || mKeys[k] != key) {
+				mKeys[++k] = key;
+				mOffsets[k] = i;
+			}
+			int label = labelOf(pairs[i]);
+			mPostings[i] = label;
+			mPositions[i] = (char) Math.min(positionOf(mValues[label], key),
+					0xFFFF);
+			if (key >= 0x10000 || key < 0) {
+				mGramCounts[label]++;
+			}
+		}
+		mOffsets[distinct] = unique;
+
+		mScores = new int[count];
+		mTouched = new int[count];
+	}
+
+	/**
+	 * Returns the number of indexed labels.
+	 */
+	int size() {
+		return mValues.length;
+	}
+
+	/**
+	 * Returns the position of the label that best contains the query: labels
+	 * starting with the query come first, then the ones where the query
+	 * appears sooner, then the shorter ones.
+	 *
+	 * @param query
+	 *            the text to look for
+	 * @return the position of the best label, or -1 if none contains the query.
+	 */
+	int bestContaining(CharSequence query) {
+		String q = query.toString().toLowerCase(Locale.ENGLISH);
+		return (collectContaining(q, 1, false) > 0) ? (int) mHeap[0] : -1;
+	}
+
+	/**
+	 * Tells if at least one label contains the query.
+	 *
+	 * @param query
+	 *            the text to look for
+	 */
+	boolean hasContaining(CharSequence query) {
+		String q = query.toString().toLowerCase(Locale.ENGLISH);
+		return collectContaining(q, 1, true) > 0;
+	}
+
+	/**
+	 * Returns the positions of the labels containing the query, best first
+	 * (see {@link #bestContaining(CharSequence)}).
+	 *
+	 * @param query
+	 *            the text to look for
+	 * @param max
+	 *            the maximum number of positions returned
+	 */
+	int[] searchContaining(CharSequence query, int max) {
+		String q = query.toString().toLowerCase(Locale.ENGLISH);
+		return labelsOf(collectContaining(q, max, false));
+	}
+
+	/**
+	 * Returns the position of the label sharing the most grams with the query,
+	 * relatively to their sizes (Dice coefficient). This tolerates typos.
+	 *
+	 * @param query
+	 *            the text to look for
+	 * @return the position of the best label, or -1 if no label shares enough
+	 *         grams with the query (see
+	 *         {@link #searchSimilar(CharSequence, int)}).
+	 */
+	int bestSimilar(CharSequence query) {
+		return (collectSimilar(query, 1) > 0) ? (int) mHeap[0] : -1;
+	}
+
+	/**
+	 * Returns the positions of the labels looking like the query, best first
+	 * (see {@link #bestSimilar(CharSequence)}). The labels sharing less than
+	 * half of the grams of the query are not candidates.
+	 *
+	 * @param query
+	 *            the text to look for
+	 * @param max
+	 *            the maximum number of positions returned
+	 */
+	int[] searchSimilar(CharSequence query, int max) {
+		return labelsOf(collectSimilar(query, max));
+	}
+
+	/**
+	 * Collects, in mHeap, the ranks of the max best labels containing q.
+	 *
+	 * The candidates are the labels in the postings of all the grams of q,
+	 * found by intersecting them from the smallest one. The first occurrence
+	 * of the gram of the smallest postings bounds the position of q in a
+	 * candidate: the candidates which can't rank better than the collected
+	 * ones are skipped without being searched.
+	 *
+	 * @param any
+	 *            true to stop at the first label found
+	 * @return the number of ranks collected
+	 */
+	private int collectContaining(String q, int max, boolean any) {
+		int lists = queryLists(q, false);
+		if (lists <= 0 || max <= 0 || lists < mQueryGrams) {
+			// empty query, or a gram of q appears nowhere
+			return 0;
+		}
+		int driver = mLists[0];
+		int driverOffset = mListOffsets[0];
+		int from = mOffsets[driver];
+		int to = mOffsets[driver + 1];
+		for (int j = 1; j < lists; j++) {
+			mCursors[j] = mOffsets[mLists[j]];
+		}
+		prepareHeap(Math.min(max, to - from));
+		int size = 0;
+		// rank a candidate must beat to be collected
+		long bound = Long.MAX_VALUE;
+		boolean single = q.length() == 1;
+		candidates: for (int i = from; i < to; i++) {
+			int label = mPostings[i];
+			int pos = Math.max(0, mPositions[i] - driverOffset);
+			if (containsRank(pos, label) >= bound) {
+				continue;
+			}
+			for (int j = 1; j < lists; j++) {
+				int end = mOffsets[mLists[j] + 1];
+				int cursor = seek(mCursors[j], end, label);
+				mCursors[j] = cursor;
+				if (cursor == end) {
+					break candidates;
+				}
+				if (mPostings[cursor] != label) {
+					continue candidates;
+				}
+			}
+			if (!single) {
+				pos = mValues[label].indexOf(q, pos);
+				if (pos < 0) {
+					continue;
+				}
+			}
+			size = offer(size, max, containsRank(pos, label));
+			if (any) {
+				break;
+			}
+			if (size == max) {
+				bound = mHeap[0];
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Collects, in mHeap, the ranks of the max labels most similar to the
+	 * query. A label sharing at least t of the g grams of the query is in one
+	 * of the g - t + 1 smallest postings: only these give candidates, whose
+	 * grams are then counted in the other postings.
+	 *
+	 * @return the number of ranks collected
+	 */
+	private int collectSimilar(CharSequence query, int max) {
+		String q = query.toString().toLowerCase(Locale.ENGLISH);
+		int lists = queryLists(q, true);
+		int grams = mQueryGrams;
+		if (lists <= 0 || max <= 0) {
+			return 0;
+		}
+		int threshold = (grams <= 2) ? 1 : (grams + 1) / 2;
+		// the missing grams are the smallest (empty) postings
+		int candidateLists = lists - threshold + 1;
+		if (candidateLists <= 0) {
+			return 0;
+		}
+
+		int touched = 0;
+		for (int j = 0; j < candidateLists; j++) {
+			int k = mLists[j];
+			for (int i = mOffsets[k], to = mOffsets[k + 1]; i < to; i++) {
+				int label = mPostings[i];
+				if (mScores[label]++ == 0) {
+					mTouched[touched++] = label;
+				}
+			}
+		}
+		for (int j = candidateLists; j < lists; j++) {
+			int k = mLists[j];
+			int from = mOffsets[k];
+			int to = mOffsets[k + 1];
+			if ((long) touched * 16 < to - from) {
+				// few candidates: look them up
+				for (int i = 0; i < touched; i++) {
+					if (Arrays.binarySearch(mPostings, from, to, mTouched[i]) >= 0) {
+						mScores[mTouched[i]]++;
+					}
+				}
+			} else {
+				for (int i = from; i < to; i++) {
+					int label = mPostings[i];
+					if (mScores[label] > 0) {
+						mScores[label]++;
+					}
+				}
+			}
+		}
+
+		prepareHeap(Math.min(max, touched));
+		int size = 0;
+		for (int i = 0; i < touched; i++) {
+			int label = mTouched[i];
+			if (mScores[label] >= threshold) {
+				size = offer(size, max, similarRank(label));
+			}
+			mScores[label] = 0;
+		}
+		return size;
+	}
+
+	/**
+	 * Lists, in mLists, the postings of the distinct grams of q found in the
+	 * index, the smallest first, and in mListOffsets the position of their
+	 * first occurrence in q. Sets mQueryGrams to the number of distinct grams
+	 * of q.
+	 *
+	 * @param bigramsOnly
+	 *            true to skip the bigrams starting with '\0', false to use
+	 *            their second char instead
+	 * @return the number of grams of q found in the index
+	 */
+	private int queryLists(String q, boolean bigramsOnly) {
+		int len = q.length();
+		mQueryGrams = 0;
+		if (len == 0) {
+			return 0;
+		}
+		int grams = 0;
+		if (mQueryKeys.length < len) {
+			mQueryKeys = new long[len];
+			mLists = new int[len];
+			mListOffsets = new int[len];
+			mCursors = new int[len];
+		}
+		if (len == 1) {
+			mQueryKeys[grams++] = pair(q.charAt(0), 0);
+		} else {
+			for (int j = 0; j + 1 < len; j++) {
+				if (q.charAt(j) != 0) {
+					mQueryKeys[grams++] = pair(
+							bigram(q.charAt(j), q.charAt(j + 1)), j);
+				} else if (!bigramsOnly) {
+					mQueryKeys[grams++] = pair(q.charAt(j + 1), j + 1);
+				}
+			}
+		}
+		// by key, then by offset: the first of each key is its first offset
+		Arrays.sort(mQueryKeys, 0, grams);
+
+		int lists = 0;
+		for (int j = 0; j < grams; j++) {
+			int key = keyOf(mQueryKeys[j]);
+			if (j > 0 && key == keyOf(mQueryKeys[j - 1])) {
+				continue;
+			}
+			mQueryGrams++;
+			int k = Arrays.binarySearch(mKeys, key);
+			if (k < 0) {
+				continue;
+			}
+			// insertion by size of the postings
+			int size = mOffsets[k + 1] - mOffsets[k];
+			int i = lists++;
+			while (i > 0 && postingsSize(mLists[i - 1]) > size) {
+				mLists[i] = mLists[i - 1];
+				mListOffsets[i] = mListOffsets[i - 1];
+				i--;
+			}
+			mLists[i] = k;
+			mListOffsets[i] = labelOf(mQueryKeys[j]);
+		}
+		return lists;
+	}
+
+	private int postingsSize(int k) {
+		return mOffsets[k + 1] - mOffsets[k];
+	}
+
+	/**
+	 * Returns the first position, from from to to, of a label greater than or
+	 * equal to label in the postings, galloping then searching by halves.
+	 */
+	private int seek(int from, int to, int label) {
+		int step = 1;
+		int high = from;
+		while (high < to && mPostings[high] < label) {
+			from = high + 1;
+			high += step;
+			step <<= 1;
+		}
+		high = Math.min(high, to);
+		while (from < high) {
+			int mid = (from + high) >>> 1;
+			if (mPostings[mid] < label) {
+				from = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return from;
+	}
+
+	private void prepareHeap(int size) {
+		if (mHeap.length < size) {
+			mHeap = new long[size];
+		}
+	}
+
+	/**
+	 * Offers rank to mHeap, a max-heap of the max smallest ranks.
+	 *
+	 * @return the new size of the heap
+	 */
+	private int offer(int size, int max, long rank) {
+		long[] heap = mHeap;
+		int i;
+		if (size < max) {
+			// sift up from the new leaf
+			i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (heap[parent] >= rank) {
+					break;
+				}
+				heap[i] = heap[parent];
+				i = parent;
+			}
+			heap[i] = rank;
+			return size;
+		}
+		if (rank >= heap[0]) {
+			return size;
+		}
+		// sift down from the root, replacing the greatest rank
+		i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && heap[child + 1] > heap[child]) {
+				child++;
+			}
+			if (heap[child] <= rank) {
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = rank;
+		return size;
+	}
+
+	private long containsRank(int pos, int label) {
+		return ((long) Math.min(pos, 0xFFFF) << 48)
+				| ((long) mLengths[label] << 32)
+				| label;
+	}
+
+	private long similarRank(int label) {
+		int dice = 2 * 0xFFFF * mScores[label]
+				/ (mQueryGrams + Math.max(1, mGramCounts[label]));
+		return ((long) (2 * 0xFFFF - dice) << 32) | label;
+	}
+
+	/**
+	 * Returns the labels of the count ranks of mHeap, best first.
+	 */
+	private int[] labelsOf(int count) {
+		Arrays.sort(mHeap, 0, count);
+		int[] labels = new int[count];
+		for (int i = 0; i < count; i++) {
+			labels[i] = (int) mHeap[i];
+		}
+		return labels;
+	}
+
+	/**
+	 * Returns an upper bound of the number of grams of value.
+	 */
+	private static int gramsOf(String value) {
+		return Math.max(0, 2 * value.length() - 1);
+	}
+
+	/**
+	 * Returns the position of the first occurrence of the gram key in value.
+	 */
+	private static int positionOf(String value, int key) {
+		if (key >= 0 && key < 0x10000) {
+			return value.indexOf(key);
+		}
+		char first = (char) (key >>> 16);
+		char second = (char) key;
+		for (int i = value.indexOf(first); i >= 0 && i + 1 < value.length(); i = value
+				.indexOf(first, i + 1)) {
+			if (value.charAt(i + 1) == second) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Single chars are keyed by their code (below 0x10000), bigrams by both
+	 * codes. A bigram starting with '\0' would collide with a single char, so
+	 * such bigrams are not indexed.
+	 */
+	private static int bigram(char first, char second) {
+		return (first << 16) | second;
+	}
+
+	private static long pair(int key, int label) {
+		return ((long) key << 32) | label;
+	}
+
+	private static int keyOf(long pair) {
+		return (int) (pair >> 32);
+	}
+
+	private static int labelOf(long pair) {
+		return (int) pair;
+	}
+}
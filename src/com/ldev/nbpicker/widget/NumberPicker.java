@@ -21,25 +21,34 @@ package com.ldev.nbpicker.widget;
 
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.os.Handler;
+import android.os.SystemClock;
+import android.text.Editable;
 import android.text.InputFilter;
 import android.text.InputType;
 import android.text.Spanned;
 import android.text.method.NumberKeyListener;
 import android.util.AttributeSet;
 import android.view.Gravity;
+import android.view.KeyEvent;
 import android.view.View;
 import android.view.View.OnFocusChangeListener;
+import android.view.View.OnKeyListener;
 import android.widget.EditText;
 import android.widget.LinearLayout;
 
+import java.nio.CharBuffer;
+import java.util.Locale;
+
 /**
  * A view for selecting a number
  * 
  * A big part of this class is taken from The Android Open Source Project.
  */
-public class NumberPicker extends LinearLayout implements OnFocusChangeListener {
+public class NumberPicker extends LinearLayout implements OnFocusChangeListener,
+		OnKeyListener {
 
 	/**
 	 * The callback interface used to indicate the number value has been
@@ -68,6 +77,22 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 		mRDrawableTimepickerInput = timepickerInput;
 	}
 
+	/**
+	 * Typed text is matched against the beginning of the displayed values.
+	 */
+	public static final int MATCH_PREFIX = 0;
+
+	/**
+	 * Typed text is matched anywhere in the displayed values.
+	 */
+	public static final int MATCH_CONTAINS = 1;
+
+	/**
+	 * Typed text is matched against the displayed values looking like it, so
+	 * typos are tolerated.
+	 */
+	public static final int MATCH_FUZZY = 2;
+
 	/**
 	 * Interface used to format the number into a string for presentation
 	 */
@@ -75,22 +100,151 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 		String toString(int value);
 	}
 
-	private int mStep = 0;
-	private final Handler mHandler;
-	private final Runnable mRunnable = new Runnable() {
+	/**
+	 * Interface used to schedule the steps while a button is longpressed, and
+	 * to time the transitions. The default one posts them to a Handler of the
+	 * UI thread, and reads the time from SystemClock.uptimeMillis().
+	 */
+	public interface Scheduler {
+		/**
+		 * Returns the current time of the clock of the scheduler, in
+		 * milliseconds.
+		 */
+		long uptimeMillis();
+
+		/**
+		 * Runs task after delay milliseconds.
+		 */
+		void postDelayed(Runnable task, long delay);
+
+		/**
+		 * Removes the scheduled runs of task.
+		 */
+		void removeCallbacks(Runnable task);
+	}
+
+	/**
+	 * Interface used to provide the values displayed to the user, when they
+	 * don't fit in an array (see {@link MappedValueSet}).
+	 */
+	public interface ValueSet {
+		/**
+		 * Returns the number of values.
+		 */
+		int size();
+
+		/**
+		 * Returns the value at index, from 0.
+		 */
+		String get(int index);
+
+		/**
+		 * Returns whether a value starts with prefix, ignoring case. It is
+		 * called on each character typed, so it should be cheaper than
+		 * {@link #findPrefix(String, int)}.
+		 * 
+		 * @param prefix
+		 *            the prefix, lower cased with {@link Locale#ENGLISH}
+		 */
+		boolean hasPrefix(String prefix);
+
+		/**
+		 * Returns the indexes of the values starting with prefix, ignoring
+		 * case, in increasing order: the first one is the first value
+		 * displayed starting with prefix.
+		 * 
+		 * @param prefix
+		 *            the prefix, lower cased with {@link Locale#ENGLISH} (as
+		 *            the values must be when compared to it)
+		 * @param max
+		 *            the maximum number of indexes returned
+		 */
+		int[] findPrefix(String prefix, int max);
+	}
+
+	private static class ArrayValueSet implements ValueSet {
+		private final String[] mValues;
+
+		ArrayValueSet(String[] values) {
+			mValues = values;
+		}
+
+		@Override
+		public int size() {
+			return mValues.length;
+		}
+
+		@Override
+		public String get(int index) {
+			return mValues[index];
+		}
+
 		@Override
-		public void run() {
-			if (0 != mStep) {
-				changeCurrent(mCurrent + mStep);
-				mHandler.postDelayed(this, mSpeed);
+		public boolean hasPrefix(String prefix) {
+			return findPrefix(prefix, 1).length > 0;
+		}
+
+		@Override
+		public int[] findPrefix(String prefix, int max) {
+			int[] found = new int[Math.min(Math.max(0, max), mValues.length)];
+			int count = 0;
+			for (int i = 0; i < mValues.length && count < found.length; i++) {
+				if (mValues[i].toLowerCase(Locale.ENGLISH).startsWith(prefix)) {
+					found[count++] = i;
+				}
+			}
+			if (count < found.length) {
+				int[] matches = new int[count];
+				System.arraycopy(found, 0, matches, 0, count);
+				found = matches;
 			}
+			return found;
+		}
+	}
+
+	private static class HandlerScheduler implements Scheduler {
+		private final Handler mHandler = new Handler();
+
+		@Override
+		public long uptimeMillis() {
+			return SystemClock.uptimeMillis();
 		}
-	};
+
+		@Override
+		public void postDelayed(Runnable task, long delay) {
+			mHandler.postDelayed(task, delay);
+		}
+
+		@Override
+		public void removeCallbacks(Runnable task) {
+			mHandler.removeCallbacks(task);
+		}
+	}
+
+	private final AutoRepeater mRepeater;
 
 	private final EditText mText;
+	private final LabelTransition mTransition;
 	private final InputFilter mNumberInputFilter;
 
-	private String[] mDisplayedValues;
+	private ValueSet mDisplayedValues;
+
+	/**
+	 * How the typed text is matched against mDisplayedValues.
+	 */
+	private int mMatchMode = MATCH_PREFIX;
+
+	/**
+	 * Index of mDisplayedValues for the MATCH_CONTAINS and MATCH_FUZZY modes,
+	 * built when the values or the mode are set rather than while the user
+	 * types (see updateIndex()).
+	 */
+	private NGramIndex mIndex;
+
+	/**
+	 * Sections of the range, built on demand for the jumps.
+	 */
+	private SectionIndex mSections;
 
 	/**
 	 * Lower value of the range of numbers allowed for the NumberPicker
@@ -113,7 +267,47 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 	private int mPrevious;
 	private OnChangedListener mListener;
 	private Formatter mFormatter;
-	private long mSpeed = 200;
+
+	/**
+	 * Labels already produced by mFormatter, indexed by value - mStart. Only
+	 * used for ranges of at most LABEL_CACHE_SIZE values.
+	 */
+	private String[] mLabels;
+	private static final int LABEL_CACHE_SIZE = 1024;
+
+	/**
+	 * Buffer the unformatted current value is written into, so stepping does
+	 * not allocate a new string for each value, and its view copied into the
+	 * text.
+	 */
+	private final char[] mDigits = new char[11];
+	private final CharSequence mDigitsText = CharBuffer.wrap(mDigits);
+
+	/**
+	 * Minimum number of digits of the unformatted values, padded with zeros.
+	 */
+	private int mMinDigits = 1;
+
+	/**
+	 * True while updateView() sets the text: there is nothing to filter then.
+	 */
+	private boolean mUpdatingView;
+
+	/**
+	 * True when the user edited the text since the last updateView(), i.e. the
+	 * text may not display mCurrent anymore.
+	 */
+	private boolean mTextDirty;
+
+	/**
+	 * Digits the values are written and read with.
+	 */
+	private LocaleDigits mLocaleDigits = LocaleDigits.get(null);
+
+	/**
+	 * Buffer the text being typed is rebuilt into by the key listener.
+	 */
+	private final StringBuilder mFilterBuffer = new StringBuilder();
 
 	/**
 	 * If the range is circular, or not.
@@ -139,9 +333,22 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 	 *            a collection of attributes
 	 */
 	public NumberPicker(Context context, AttributeSet attrs) {
+		this(context, attrs, PickerStyle.obtain(context, attrs));
+	}
+
+	/**
+	 * Create a new number picker configured by style, rendered once.
+	 */
+	NumberPicker(Context context, AttributeSet attrs, PickerStyle style) {
 		super(context, attrs);
 		setOrientation(VERTICAL);
-		mHandler = new Handler();
+		Scheduler scheduler = new HandlerScheduler();
+		mRepeater = new AutoRepeater(new AutoRepeater.Target() {
+			@Override
+			public void repeat(int step) {
+				changeCurrent(mCurrent + step);
+			}
+		}, scheduler);
 
 		InputFilter inputFilter = new NumberPickerInputFilter();
 		mNumberInputFilter = new NumberRangeKeyListener();
@@ -154,7 +361,7 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 		mDecrementButton = new NumberPickerButton(this,
 				NumberPickerButton.BTN_DOWN);
 
-		mText = new EditText(context);
+		mText = createTextField(context);
 		mText.setTextAppearance(context,
 				android.R.style.TextAppearance_Large_Inverse);
 		mText.setGravity(Gravity.CENTER);
@@ -163,9 +370,11 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 				android.R.color.primary_text_light);
 		mText.setTextColor(color);
 		mText.setOnFocusChangeListener(this);
+		mText.setOnKeyListener(this);
 		mText.setFilters(new InputFilter[] { inputFilter });
 		mText.setRawInputType(InputType.TYPE_CLASS_NUMBER);
 		mText.setBackgroundResource(mRDrawableTimepickerInput);
+		mTransition = new LabelTransition(this, mText, scheduler);
 
 		addView(mIncrementButton, params);
 		addView(mText, params);
@@ -174,6 +383,52 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 		if (!isEnabled()) {
 			setEnabled(false);
 		}
+
+		if (style != null) {
+			applyStyle(style);
+		}
+	}
+
+	/**
+	 * Applies the configuration read from the XML attributes, rendering the
+	 * text only once.
+	 */
+	private void applyStyle(PickerStyle style) {
+		mRepeater.setStepSize(style.step);
+		mCircular = style.circular;
+		mRepeater.setSpeed(style.speed);
+		if (style.displayedValues != null) {
+			mDisplayedValues = new ArrayValueSet(style.displayedValues);
+			mText.setRawInputType(InputType.TYPE_CLASS_TEXT
+					| InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS);
+		}
+		if (style.hasRange) {
+			mStart = style.start;
+			mEnd = style.end;
+			mCurrent = style.current;
+			updateView();
+		}
+	}
+
+	/**
+	 * Sets the package of the R class generated for the application, where
+	 * the XML attributes of the pickers (see res/values/attrs.xml) are looked
+	 * up. Only needed when it is not the package of the application, e.g.
+	 * when the build renames the package of the application.
+	 * 
+	 * @param packageName
+	 *            the package of the R class, or null for the package of the
+	 *            application
+	 */
+	public static void setResourcePackage(String packageName) {
+		PickerStyle.setResourcePackage(packageName);
+	}
+
+	/**
+	 * Creates the text field of this NumberPicker, from its constructor.
+	 */
+	EditText createTextField(Context context) {
+		return new EditText(context);
 	}
 
 	@Override
@@ -181,6 +436,21 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 		return mText.requestFocus();
 	}
 
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		mTransition.release();
+	}
+
+	@Override
+	protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+		if (child == mText && mTransition.isRunning()
+				&& mTransition.draw(canvas)) {
+			return true;
+		}
+		return super.drawChild(canvas, child, drawingTime);
+	}
+
 	/**
 	 * Set the enabled state of this view. The interpretation of the enabled
 	 * state varies by subclass.
@@ -215,6 +485,39 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 	 */
 	public void setFormatter(Formatter formatter) {
 		mFormatter = formatter;
+		mLabels = null;
+	}
+
+	/**
+	 * Sets the locale whose digits are used to display the numbers when no
+	 * formatter is set, and accepted when the user types a number. ASCII
+	 * digits are always accepted.
+	 * 
+	 * @param locale
+	 *            the locale, or null for the default one
+	 */
+	public void setLocale(Locale locale) {
+		mLocaleDigits = LocaleDigits.get(locale);
+		updateView();
+	}
+
+	/**
+	 * Sets the minimum number of digits of the numbers displayed when no
+	 * formatter is set. Shorter numbers are padded with the zero of the locale
+	 * (see {@link #setLocale(Locale)}), e.g. 2 displays 5 as 05.
+	 * 
+	 * @param digits
+	 *            the minimum number of digits, from 1 (default) to 10
+	 * @throws IllegalArgumentException
+	 *             when digits is out of range
+	 */
+	public void setMinDigits(int digits) {
+		if (digits < 1 || digits > 10) {
+			throw new IllegalArgumentException(
+					"digits should be >= 1 and <= 10");
+		}
+		mMinDigits = digits;
+		updateView();
 	}
 
 	/**
@@ -243,7 +546,30 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 	 *            the values displayed to the user.
 	 */
 	public void setRange(int start, int end, String[] displayedValues) {
+		applyRange(start, end, (displayedValues != null) ? new ArrayValueSet(
+				displayedValues) : null);
+	}
+
+	/**
+	 * Set the values displayed to the user. The range of numbers allowed is
+	 * from start to start + values.size() - 1, and the current value will be
+	 * automatically set to the start.
+	 * 
+	 * @param start
+	 *            the start of the range (inclusive)
+	 * @param values
+	 *            the values displayed to the user.
+	 */
+	public void setValueSet(int start, ValueSet values) {
+		applyRange(start, start + values.size() - 1, values);
+	}
+
+	private void applyRange(int start, int end, ValueSet displayedValues) {
 		mDisplayedValues = displayedValues;
+		mIndex = null;
+		updateIndex();
+		mSections = null;
+		mLabels = null;
 		mStart = start;
 		mEnd = end;
 		mCurrent = start;
@@ -256,6 +582,93 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 		}
 	}
 
+	/**
+	 * Changes the range of numbers allowed for the number picker, keeping the
+	 * displayed values if any. Unlike {@link #setRange(int, int)}, the current
+	 * value is kept, or clamped to the new range, and the view is only updated
+	 * if the current value changed. The listener is not notified.
+	 *
+	 * @param start
+	 *            the start of the range (inclusive)
+	 * @param end
+	 *            the end of the range (inclusive)
+	 * @throws IllegalArgumentException
+	 *             when the range doesn't match the displayed values
+	 */
+	public void updateRange(int start, int end) {
+		if (mDisplayedValues != null
+				&& mDisplayedValues.size() != end - start + 1) {
+			throw new IllegalArgumentException(
+					"range should match the displayed values");
+		}
+		if (start == mStart && end == mEnd) {
+			return;
+		}
+		// displayed values are indexed from the start of the range
+		boolean update = mDisplayedValues != null && start != mStart;
+		mLabels = null;
+		mSections = null;
+		mStart = start;
+		mEnd = end;
+		int current = Math.max(start, Math.min(end, mCurrent));
+		if (current != mCurrent || update) {
+			mCurrent = current;
+			updateView();
+		}
+	}
+
+	/**
+	 * Sets how the text typed by the user is matched against the displayed
+	 * values (see {@link #setRange(int, int, String[])}).
+	 * 
+	 * The {@link #MATCH_CONTAINS} and {@link #MATCH_FUZZY} modes index the
+	 * displayed values, here or when they are set, so that typing doesn't: this
+	 * takes time with large sets of values.
+	 * 
+	 * @param mode
+	 *            one of {@link #MATCH_PREFIX} (default), {@link #MATCH_CONTAINS}
+	 *            or {@link #MATCH_FUZZY}
+	 * @throws IllegalArgumentException
+	 *             when mode is unknown
+	 */
+	public void setMatchMode(int mode) {
+		if (mode != MATCH_PREFIX && mode != MATCH_CONTAINS
+				&& mode != MATCH_FUZZY) {
+			throw new IllegalArgumentException("unknown match mode " + mode);
+		}
+		mMatchMode = mode;
+		updateIndex();
+	}
+
+	/**
+	 * Returns the values whose displayed value matches text according to the
+	 * match mode, best match first.
+	 * 
+	 * @param text
+	 *            the text to match
+	 * @param max
+	 *            the maximum number of values returned
+	 * @return the matching values, empty if no displayed values are set.
+	 */
+	public int[] getMatches(CharSequence text, int max) {
+		if (mDisplayedValues == null) {
+			return new int[0];
+		}
+		int[] matches;
+		if (mMatchMode == MATCH_FUZZY) {
+			matches = mIndex.searchSimilar(text, max);
+		} else if (mMatchMode == MATCH_CONTAINS) {
+			matches = mIndex.searchContaining(text, max);
+		} else {
+			matches = mDisplayedValues.findPrefix(text.toString()
+					.toLowerCase(Locale.ENGLISH), max);
+		}
+		for (int i = 0; i < matches.length; i++) {
+			matches[i] += mStart;
+		}
+		return matches;
+	}
+
 	/**
 	 * Set the current value for the number picker.
 	 * 
@@ -282,7 +695,35 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 	 *            default 200ms
 	 */
 	public void setSpeed(long speed) {
-		mSpeed = speed;
+		mRepeater.setSpeed(speed);
+	}
+
+	/**
+	 * Sets the duration of the animation sliding the old value out and the new
+	 * one in when the +/- buttons change the value. The animation is skipped
+	 * while the buttons are longpressed, if the steps are faster than it.
+	 * 
+	 * @param duration
+	 *            the duration in milliseconds, 0 (default) for no animation
+	 */
+	public void setTransitionDuration(long duration) {
+		mTransition.setDuration(duration);
+	}
+
+	/**
+	 * Sets the scheduler of the steps done while the +/- buttons are
+	 * longpressed and the clock of the transitions, e.g. to drive them with a
+	 * virtual clock.
+	 * 
+	 * @param scheduler
+	 *            the scheduler, or null for the default one
+	 */
+	public void setScheduler(Scheduler scheduler) {
+		if (scheduler == null) {
+			scheduler = new HandlerScheduler();
+		}
+		mRepeater.setScheduler(scheduler);
+		mTransition.setScheduler(scheduler);
 	}
 
 	/**
@@ -295,6 +736,21 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 		mCircular = circular;
 	}
 
+	/**
+	 * Sets the value added or removed by the +/- buttons.
+	 * 
+	 * @param step
+	 *            the step, 1 by default
+	 * @throws IllegalArgumentException
+	 *             when step is not positive
+	 */
+	public void setStep(int step) {
+		if (step <= 0) {
+			throw new IllegalArgumentException("step should be > 0");
+		}
+		mRepeater.setStepSize(step);
+	}
+
 	/**
 	 * Returns the current value of the NumberPicker
 	 * 
@@ -304,6 +760,111 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 		return mCurrent;
 	}
 
+	/**
+	 * Returns the number of sections of the range: one per first letter of
+	 * the displayed values, or one per bucket of a power of ten (giving at
+	 * least ten sections) for numeric ranges.
+	 * 
+	 * @return the number of sections.
+	 */
+	public int getSectionCount() {
+		return getSections().size();
+	}
+
+	/**
+	 * Returns the label of a section: its first letter for displayed values,
+	 * its first number otherwise.
+	 * 
+	 * @param section
+	 *            the section, from 0 to getSectionCount() - 1
+	 */
+	public String getSectionLabel(int section) {
+		return getSections().getLabel(section);
+	}
+
+	/**
+	 * Returns the section the current value belongs to.
+	 */
+	public int getCurrentSection() {
+		return getSections().getSection(mCurrent);
+	}
+
+	/**
+	 * Jumps to the first value of a section, notifying the listener.
+	 * 
+	 * @param section
+	 *            the section, from 0 to getSectionCount() - 1
+	 */
+	public void jumpToSection(int section) {
+		validateInput();
+		changeCurrent(getSections().getSectionStart(section));
+	}
+
+	/**
+	 * Jumps to the first value of the next section, or to the end of the
+	 * range from the last section.
+	 */
+	public void jumpToNextSection() {
+		validateInput();
+		SectionIndex sections = getSections();
+		int next = sections.getSection(mCurrent) + 1;
+		changeCurrent((next < sections.size()) ? sections
+				.getSectionStart(next) : mEnd);
+	}
+
+	/**
+	 * Jumps to the first value of the current section, or to the first value
+	 * of the previous section if the current value is already the first one.
+	 */
+	public void jumpToPreviousSection() {
+		validateInput();
+		SectionIndex sections = getSections();
+		int section = sections.getSection(mCurrent);
+		if (sections.getSectionStart(section) == mCurrent && section > 0) {
+			section--;
+		}
+		changeCurrent(sections.getSectionStart(section));
+	}
+
+	/**
+	 * Jumps to the start of the range.
+	 */
+	public void jumpToStart() {
+		validateInput();
+		changeCurrent(mStart);
+	}
+
+	/**
+	 * Jumps to the end of the range.
+	 */
+	public void jumpToEnd() {
+		validateInput();
+		changeCurrent(mEnd);
+	}
+
+	@Override
+	public boolean onKey(View v, int keyCode, KeyEvent event) {
+		if (event.getAction() != KeyEvent.ACTION_DOWN) {
+			return false;
+		}
+		switch (keyCode) {
+		case KeyEvent.KEYCODE_PAGE_UP:
+			jumpToPreviousSection();
+			return true;
+		case KeyEvent.KEYCODE_PAGE_DOWN:
+			jumpToNextSection();
+			return true;
+		case KeyEvent.KEYCODE_MOVE_HOME:
+			jumpToStart();
+			return true;
+		case KeyEvent.KEYCODE_MOVE_END:
+			jumpToEnd();
+			return true;
+		default:
+			return false;
+		}
+	}
+
 	@Override
 	public void onFocusChange(View v, boolean hasFocus) {
 		/*
@@ -325,18 +886,35 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 	 *            the new value of the NumberPicker
 	 */
 	protected void changeCurrent(int current) {
-		// Wrap around the values if we go past the start or end
-		if (current > mEnd) {
-			current = mCircular ? mStart : mEnd;
-		} else if (current < mStart) {
-			current = mCircular ? mEnd : mStart;
-		}
+		int direction = current - mCurrent;
+		current = wrap(current, mStart, mEnd, mCircular);
 		mPrevious = mCurrent;
 		mCurrent = current;
 		if (mPrevious != mCurrent) {
+			long duration = mTransition.getDuration();
+			// Not animated if the steps are faster than the transition
+			boolean animated = duration > 0
+					&& !(mRepeater.isRunning() && mRepeater.getSpeed() < duration);
+			String from = animated ? mText.getText().toString() : null;
 			notifyChange();
 			updateView();
+			if (from != null) {
+				mTransition.start(from, mText.getText().toString(), direction);
+			}
+		}
+	}
+
+	/**
+	 * Wraps around the values if we go past the start or end, or clamps them
+	 * if the range is not circular.
+	 */
+	static int wrap(int current, int start, int end, boolean circular) {
+		if (current > end) {
+			return circular ? start : end;
+		} else if (current < start) {
+			return circular ? end : start;
 		}
+		return current;
 	}
 
 	/**
@@ -372,6 +950,14 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 	 * {@link #setRange}, the string corresponding to the index specified by the
 	 * current value will be returned. Otherwise, the formatter specified in
 	 * {@link setFormatter} will be used to format the number.
+	 * 
+	 * A running transition is cancelled: changeCurrent() starts the next one
+	 * after the update, other changes of the value are not animated.
+	 * 
+	 * The text is replaced in the Editable of the text field, rather than set,
+	 * so the text field keeps its Editable, spans and layout: the picker does
+	 * not allocate anything here in steady state (the framework may still
+	 * allocate while notifying the text watchers).
 	 */
 	private void updateView() {
 		/*
@@ -379,21 +965,65 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 		 * find the correct value in the displayed values for the current
 		 * number.
 		 */
-		if (mDisplayedValues == null) {
-			mText.setText(formatNumber(mCurrent));
+		mTransition.cancel();
+		Editable text = mText.getText();
+		mUpdatingView = true;
+		if (mDisplayedValues != null) {
+			text.replace(0, text.length(),
+					mDisplayedValues.get(mCurrent - mStart));
+		} else if (mFormatter != null) {
+			text.replace(0, text.length(), formatNumber(mCurrent));
 		} else {
-			mText.setText(mDisplayedValues[mCurrent - mStart]);
+			int offset = mLocaleDigits.write(mCurrent, mDigits, mMinDigits);
+			text.replace(0, text.length(), mDigitsText, offset,
+					mDigits.length);
+		}
+		mUpdatingView = false;
+		mTextDirty = false;
+		mText.setSelection(text.length());
+	}
+
+	private SectionIndex getSections() {
+		if (mSections == null) {
+			mSections = (mDisplayedValues != null) ? SectionIndex.forValues(
+					mStart, mDisplayedValues) : SectionIndex.forRange(mStart,
+					mEnd);
+		}
+		return mSections;
+	}
+
+	/**
+	 * Builds the index of the displayed values if the match mode needs it and
+	 * it is not built yet.
+	 */
+	private void updateIndex() {
+		if (mIndex == null && mDisplayedValues != null
+				&& mMatchMode != MATCH_PREFIX) {
+			mIndex = new NGramIndex(mDisplayedValues);
 		}
-		mText.setSelection(mText.getText().length());
 	}
 
 	private String formatNumber(int value) {
-		return (mFormatter != null) ? mFormatter.toString(value) : String
-				.valueOf(value);
+		if (mFormatter == null) {
+			return String.valueOf(value);
+		}
+		if ((long) mEnd - mStart >= LABEL_CACHE_SIZE || value < mStart
+				|| value > mEnd) {
+			return mFormatter.toString(value);
+		}
+		if (mLabels == null) {
+			mLabels = new String[mEnd - mStart + 1];
+		}
+		String label = mLabels[value - mStart];
+		if (label == null) {
+			label = mFormatter.toString(value);
+			mLabels[value - mStart] = label;
+		}
+		return label;
 	}
 
 	private void validateCurrentView(CharSequence str) {
-		int val = getSelectedPos(str.toString());
+		int val = getSelectedPos(str);
 		if ((val >= mStart) && (val <= mEnd)) {
 			if (mCurrent != val) {
 				mPrevious = mCurrent;
@@ -405,19 +1035,22 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 	}
 
 	void increment(int inc) {
-		changeCurrent(mCurrent + inc);
+		mRepeater.step(inc);
 	}
 
 	void startIncrement(int step) {
 		validateInput();
 
-		mStep = step;
-		mHandler.post(mRunnable);
+		mRepeater.start(step);
 	}
 
 	void validateInput() {
-		String str = String.valueOf((mText).getText());
-		if ("".equals(str)) {
+		if (!mTextDirty) {
+			// The text still displays the current value
+			return;
+		}
+		CharSequence str = mText.getText();
+		if (str.length() == 0) {
 			// Restore to the old value as we don't allow empty values
 			updateView();
 		} else {
@@ -427,7 +1060,7 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 	}
 
 	void cancelIncrement() {
-		mStep = 0;
+		mRepeater.cancel();
 	}
 
 	void requestInputFocus() {
@@ -435,9 +1068,6 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 			mText.requestFocus();
 	}
 
-	private static final char[] DIGIT_CHARACTERS = new char[] { '0', '1', '2',
-			'3', '4', '5', '6', '7', '8', '9' };
-
 	private NumberPickerButton mIncrementButton;
 	private NumberPickerButton mDecrementButton;
 
@@ -445,6 +1075,11 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 		@Override
 		public CharSequence filter(CharSequence source, int start, int end,
 				Spanned dest, int dstart, int dend) {
+			if (mUpdatingView) {
+				// Keep the text set by updateView() as is
+				return null;
+			}
+			mTextDirty = true;
 			if (mDisplayedValues == null) {
 				return mNumberInputFilter.filter(source, start, end, dest,
 						dstart, dend);
@@ -453,12 +1088,20 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 					end));
 			String result = String.valueOf(dest.subSequence(0, dstart))
 					+ filtered + dest.subSequence(dend, dest.length());
-			String str = String.valueOf(result).toLowerCase();
-			for (String val : mDisplayedValues) {
-				val = val.toLowerCase();
-				if (val.startsWith(str)) {
-					return filtered;
-				}
+			if (mMatchMode == MATCH_FUZZY) {
+				// anything may be a typo of some value
+				return filtered;
+			} else if (mMatchMode == MATCH_CONTAINS) {
+				return mIndex.hasContaining(result) ? filtered : "";
+			}
+			String str = String.valueOf(result).toLowerCase(Locale.ENGLISH);
+			if (mDisplayedValues.hasPrefix(str)) {
+				return filtered;
+			}
+			// a number may be typed instead, e.g. 10 for october
+			long number = mLocaleDigits.parse(result);
+			if (number != LocaleDigits.NOT_A_NUMBER && number <= mEnd) {
+				return filtered;
 			}
 			return "";
 		}
@@ -475,7 +1118,7 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 
 		@Override
 		protected char[] getAcceptedChars() {
-			return DIGIT_CHARACTERS;
+			return mLocaleDigits.getAcceptedChars();
 		}
 
 		@Override
@@ -484,15 +1127,19 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 
 			CharSequence filtered = super.filter(source, start, end, dest,
 					dstart, dend);
+
+			StringBuilder result = mFilterBuffer;
+			result.setLength(0);
+			result.append(dest, 0, dstart);
 			if (filtered == null) {
-				filtered = source.subSequence(start, end);
+				result.append(source, start, end);
+			} else {
+				result.append(filtered);
 			}
+			result.append(dest, dend, dest.length());
 
-			String result = String.valueOf(dest.subSequence(0, dstart))
-					+ filtered + dest.subSequence(dend, dest.length());
-
-			if ("".equals(result)) {
-				return result;
+			if (result.length() == 0) {
+				return filtered;
 			}
 			int val = getSelectedPos(result);
 
@@ -509,31 +1156,38 @@ public class NumberPicker extends LinearLayout implements OnFocusChangeListener
 		}
 	}
 
-	private int getSelectedPos(String str) {
+	private int getSelectedPos(CharSequence text) {
+		long number = mLocaleDigits.parse(text);
 		if (mDisplayedValues == null) {
-			try {
-				return Integer.parseInt(str);
-			} catch (NumberFormatException e) {
-				/* Ignore as if it's not a number we don't care */
+			if (number != LocaleDigits.NOT_A_NUMBER) {
+				return (int) number;
+			}
+			return mStart;
+		}
+		String str = text.toString();
+		if (mMatchMode != MATCH_PREFIX) {
+			int best = (mMatchMode == MATCH_FUZZY) ? mIndex.bestSimilar(str)
+					: mIndex.bestContaining(str);
+			if (best >= 0) {
+				return mStart + best;
+			}
+			if (number != LocaleDigits.NOT_A_NUMBER) {
+				return (int) number;
 			}
 		} else {
-			for (int i = 0; i < mDisplayedValues.length; i++) {
-				/* Don't force the user to type in jan when ja will do */
-				str = str.toLowerCase();
-				if (mDisplayedValues[i].toLowerCase().startsWith(str)) {
-					return mStart + i;
-				}
+			/* Don't force the user to type in jan when ja will do */
+			int[] found = mDisplayedValues.findPrefix(
+					str.toLowerCase(Locale.ENGLISH), 1);
+			if (found.length > 0) {
+				return mStart + found[0];
 			}
 
 			/*
 			 * The user might have typed in a number into the month field i.e.
 			 * 10 instead of OCT so support that too.
 			 */
-			try {
-				return Integer.parseInt(str);
-			} catch (NumberFormatException e) {
-
-				/* Ignore as if it's not a number we don't care */
+			if (number != LocaleDigits.NOT_A_NUMBER) {
+				return (int) number;
 			}
 		}
 		return mStart;
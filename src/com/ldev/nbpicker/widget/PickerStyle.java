@@ -0,0 +1,256 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ * The configuration of a picker read from the NumberPicker styleable
+ * attributes (see res/values/attrs.xml).
+ *
+ * The styleable is looked up in the R class of the application, as it is
+ * generated there. It is found in the package of the application, unless
+ * another one is set by {@link NumberPicker#setResourcePackage(String)}: the
+ * application must set it when its package is not the one of its R class
+ * (e.g. when a build renames the package of the application).
+ *
+ * The configuration of the pickers only defined by a style is cached per
+ * theme and style, so inflating many identical pickers resolves it once. The
+ * cache is cleared when the configuration of the resources changes, e.g. the
+ * locale or the orientation, as the style may resolve to other values.
+ */
+final class PickerStyle {
+
+	private static final String[] ATTRS = new String[] { "npStartValue",
+			"npEndValue", "npCurrentValue", "npStep", "npSpeed", "npCircular",
+			"npLinked", "npDisplayedValues" };
+
+	private static final int START = 0;
+	private static final int END = 1;
+	private static final int CURRENT = 2;
+	private static final int STEP = 3;
+	private static final int SPEED = 4;
+	private static final int CIRCULAR = 5;
+	private static final int LINKED = 6;
+	private static final int DISPLAYED_VALUES = 7;
+
+	/**
+	 * The styleable and the indexes of ATTRS in it, per application package.
+	 * null when the package has no NumberPicker styleable.
+	 */
+	private static final HashMap<String, int[][]> sStyleables = new HashMap<String, int[][]>();
+
+	/**
+	 * Package of the R class, null for the package of the application.
+	 */
+	private static String sResourcePackage;
+
+	/**
+	 * Configurations of the styles already parsed, per theme and per style
+	 * resource, for the resources configuration sConfiguration.
+	 */
+	private static final WeakHashMap<Resources.Theme, HashMap<Integer, PickerStyle>> sStyles = new WeakHashMap<Resources.Theme, HashMap<Integer, PickerStyle>>();
+	private static Configuration sConfiguration;
+
+	boolean hasRange;
+	int start;
+	int end;
+	boolean hasCurrent;
+	int current;
+	int step = 1;
+	long speed = 200;
+	boolean circular;
+	boolean linked = true;
+	String[] displayedValues;
+
+	private PickerStyle() {
+	}
+
+	/**
+	 * Reads the configuration of a picker.
+	 *
+	 * @param context
+	 *            the application environment
+	 * @param attrs
+	 *            the attributes of the picker, may be null
+	 * @return the configuration, or null if there is none.
+	 */
+	static PickerStyle obtain(Context context, AttributeSet attrs) {
+		if (attrs == null) {
+			return null;
+		}
+		String packageName = sResourcePackage;
+		int[][] styleable = getStyleable((packageName != null) ? packageName
+				: context.getPackageName());
+		if (styleable == null) {
+			return null;
+		}
+
+		int styleRes = attrs.getStyleAttribute();
+		boolean cacheable = (styleRes != 0) && !hasInlineAttributes(attrs);
+		HashMap<Integer, PickerStyle> styles = null;
+		if (cacheable) {
+			styles = getStyles(context);
+			synchronized (sStyles) {
+				PickerStyle style = styles.get(styleRes);
+				if (style != null) {
+					return style;
+				}
+			}
+		}
+
+		TypedArray a = context.obtainStyledAttributes(attrs, styleable[0]);
+		PickerStyle style = new PickerStyle();
+		try {
+			int[] index = styleable[1];
+			style.hasRange = a.hasValue(index[START]) || a.hasValue(index[END]);
+			style.start = a.getInt(index[START], 0);
+			style.end = a.getInt(index[END], style.start);
+			style.hasCurrent = a.hasValue(index[CURRENT]);
+			style.current = a.getInt(index[CURRENT], style.start);
+			style.step = a.getInt(index[STEP], style.step);
+			style.speed = a.getInt(index[SPEED], (int) style.speed);
+			style.circular = a.getBoolean(index[CIRCULAR], style.circular);
+			style.linked = a.getBoolean(index[LINKED], style.linked);
+			CharSequence[] values = a.getTextArray(index[DISPLAYED_VALUES]);
+			if (values != null) {
+				style.displayedValues = new String[values.length];
+				for (int i = 0; i < values.length; i++) {
+					style.displayedValues[i] = String.valueOf(values[i]);
+				}
+				style.hasRange = true;
+				style.end = style.start + values.length - 1;
+			}
+			if (style.step <= 0) {
+				style.step = 1;
+			}
+			if (style.end < style.start) {
+				style.end = style.start;
+			}
+			style.current = Math.max(style.start,
+					Math.min(style.end, style.current));
+		} finally {
+			a.recycle();
+		}
+
+		if (cacheable) {
+			synchronized (sStyles) {
+				styles.put(styleRes, style);
+			}
+		}
+		return style;
+	}
+
+	/**
+	 * Sets the package of the R class the NumberPicker styleable is read from.
+	 *
+	 * @param packageName
+	 *            the package, or null for the package of the application
+	 */
+	static void setResourcePackage(String packageName) {
+		sResourcePackage = packageName;
+	}
+
+	/**
+	 * Returns the cached styles of the theme of context, clearing all the
+	 * cached styles if the configuration of the resources changed.
+	 */
+	private static HashMap<Integer, PickerStyle> getStyles(Context context) {
+		Configuration configuration = context.getResources()
+				.getConfiguration();
+		Resources.Theme theme = context.getTheme();
+		synchronized (sStyles) {
+			if (sConfiguration == null || !sConfiguration.equals(configuration)) {
+				sStyles.clear();
+				sConfiguration = new Configuration(configuration);
+			}
+			HashMap<Integer, PickerStyle> styles = sStyles.get(theme);
+			if (styles == null) {
+				styles = new HashMap<Integer, PickerStyle>();
+				sStyles.put(theme, styles);
+			}
+			return styles;
+		}
+	}
+
+	/**
+	 * Returns a copy of this configuration, whose current value is the end of
+	 * the range.
+	 */
+	PickerStyle atEnd() {
+		PickerStyle style = new PickerStyle();
+		style.hasRange = hasRange;
+		style.start = start;
+		style.end = end;
+		style.hasCurrent = true;
+		style.current = end;
+		style.step = step;
+		style.speed = speed;
+		style.circular = circular;
+		style.linked = linked;
+		style.displayedValues = displayedValues;
+		return style;
+	}
+
+	/**
+	 * Tells if attrs sets some of the picker attributes itself, rather than
+	 * only through its style.
+	 */
+	private static boolean hasInlineAttributes(AttributeSet attrs) {
+		for (int i = 0, count = attrs.getAttributeCount(); i < count; i++) {
+			String name = attrs.getAttributeName(i);
+			for (String attr : ATTRS) {
+				if (attr.equals(name)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static int[][] getStyleable(String packageName) {
+		synchronized (sStyleables) {
+			if (sStyleables.containsKey(packageName)) {
+				return sStyleables.get(packageName);
+			}
+			int[][] styleable = null;
+			try {
+				Class<?> clazz = Class.forName(packageName + ".R$styleable");
+				int[] attrs = (int[]) clazz.getField("NumberPicker").get(null);
+				int[] index = new int[ATTRS.length];
+				for (int i = 0; i < ATTRS.length; i++) {
+					index[i] = clazz.getField("NumberPicker_" + ATTRS[i])
+							.getInt(null);
+				}
+				styleable = new int[][] { attrs, index };
+			} catch (Exception e) {
+			}
+			sStyleables.put(packageName, styleable);
+			return styleable;
+		}
+	}
+}
@@ -25,6 +25,8 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.LinearLayout;
 
+import java.util.Locale;
+
 public class RangeNumberPicker extends LinearLayout implements NumberPicker.OnChangedListener {
 	
 	/**
@@ -69,14 +71,19 @@ public class RangeNumberPicker extends LinearLayout implements NumberPicker.OnCh
 
 	public RangeNumberPicker(Context context, AttributeSet attrs) {
 		super(context, attrs);
-		mMinPicker = new NumberPicker(context);
+		PickerStyle style = PickerStyle.obtain(context, attrs);
+		mMinPicker = new NumberPicker(context, null, style);
 		mMinPicker.setId(mIncrementId);
 		mMinPicker.setOnChangeListener(this);
-		mMaxPicker = new NumberPicker(context);
+		mMaxPicker = new NumberPicker(context, null,
+				(style != null && !style.hasCurrent) ? style.atEnd() : style);
 		mMaxPicker.setId(mDecrementId);
 		mMaxPicker.setOnChangeListener(this);
 		super.addView(mMinPicker, 0, mParams);
 		super.addView(mMaxPicker, 1, mParams);
+		if (style != null) {
+			mAreLinked = style.linked;
+		}
 	}
 
 	public RangeNumberPicker(Context context) {
@@ -93,6 +100,15 @@ public class RangeNumberPicker extends LinearLayout implements NumberPicker.OnCh
     	mMaxPicker.setFormatter(formatter);
     }
 
+    /**
+     * Sets the locale whose digits are used to display and type the numbers
+     * @param locale the locale, or null for the default one
+     */
+    public void setLocale(Locale locale) {
+    	mMinPicker.setLocale(locale);
+    	mMaxPicker.setLocale(locale);
+    }
+
     /**
      * Set the range of numbers allowed for the number picker. The current
      * value will be automatically set to the start.
@@ -153,6 +169,18 @@ public class RangeNumberPicker extends LinearLayout implements NumberPicker.OnCh
     	mMaxPicker.setSpeed(speed);
     }
 
+    /**
+     * Sets the duration of the animation of the value changes done by the
+     * +/- buttons
+     *
+     * @param duration the duration in milliseconds, 0 (default) for no
+     * animation
+     */
+    public void setTransitionDuration(long duration) {
+    	mMinPicker.setTransitionDuration(duration);
+    	mMaxPicker.setTransitionDuration(duration);
+    }
+
 	public void setCircularity(boolean circular) {
 		mMinPicker.setCircularity(circular);
     	mMaxPicker.setCircularity(circular);
@@ -0,0 +1,195 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import java.util.Arrays;
+
+/**
+ * Splits the range of a NumberPicker into sections, to jump from one to
+ * another.
+ *
+ * Displayed values are split by their first letter: a section starts with
+ * each value whose first letter differs from the previous one. Numeric ranges
+ * are split into buckets of a power of ten (tens, hundreds, thousands...)
+ * giving at least ten sections, which are computed instead of stored.
+ *
+ * The sections of a {@link MappedValueSet} are read from its file, where they
+ * are written with the values, instead of decoding all the values.
+ */
+class SectionIndex {
+
+	private static final int MIN_SECTIONS = 10;
+
+	private final int mStart;
+	private final int mEnd;
+
+	/**
+	 * First value of each section, for displayed values. null for numeric
+	 * ranges.
+	 */
+	private final int[] mStarts;
+	private final String[] mLabels;
+
+	/**
+	 * Size of the buckets of numeric ranges.
+	 */
+	private final long mBucket;
+
+	private SectionIndex(int start, int end, int[] starts, String[] labels,
+			long bucket) {
+		mStart = start;
+		mEnd = end;
+		mStarts = starts;
+		mLabels = labels;
+		mBucket = bucket;
+	}
+
+	/**
+	 * Builds the sections of displayed values.
+	 *
+	 * @param start
+	 *            the value of the first displayed value
+	 * @param values
+	 *            the displayed values
+	 */
+	static SectionIndex forValues(int start, NumberPicker.ValueSet values) {
+		final int count = values.size();
+		if (values instanceof MappedValueSet) {
+			MappedValueSet mapped = (MappedValueSet) values;
+			int sections = mapped.getSectionCount();
+			int[] starts = new int[sections];
+			String[] labels = new String[sections];
+			for (int i = 0; i < sections; i++) {
+				starts[i] = start + mapped.getSectionStart(i);
+				labels[i] = String.valueOf(mapped.getSectionLetter(i));
+			}
+			return new SectionIndex(start, start + count - 1, starts, labels,
+					0);
+		}
+
+		int[] starts = new int[Math.min(count, 64)];
+		String[] labels = new String[starts.length];
+		int sections = 0;
+		char previous = 0;
+		for (int i = 0; i < count; i++) {
+			char letter = getLetter(values.get(i));
+			if (i == 0 || letter != previous) {
+				if (sections == starts.length) {
+					starts = copyOf(starts, 2 * sections);
+					labels = copyOf(labels, 2 * sections);
+				}
+				starts[sections] = start + i;
+				labels[sections] = String.valueOf(letter);
+				sections++;
+				previous = letter;
+			}
+		}
+		return new SectionIndex(start, start + count - 1, copyOf(starts,
+				sections), copyOf(labels, sections), 0);
+	}
+
+	/**
+	 * Returns the letter of the section of value: its first letter, upper
+	 * cased.
+	 */
+	static char getLetter(String value) {
+		return (value.length() > 0) ? Character.toUpperCase(value.charAt(0))
+				: ' ';
+	}
+
+	/**
+	 * Builds the sections of a numeric range.
+	 *
+	 * @param start
+	 *            the start of the range (inclusive)
+	 * @param end
+	 *            the end of the range (inclusive)
+	 */
+	static SectionIndex forRange(int start, int end) {
+		// the largest power of ten leaving at least MIN_SECTIONS full buckets
+		long count = (long) end - start + 1;
+		long bucket = 1;
+		while (bucket * 10 * MIN_SECTIONS <= count) {
+			bucket *= 10;
+		}
+		return new SectionIndex(start, end, null, null, bucket);
+	}
+
+	/**
+	 * Returns the number of sections.
+	 */
+	int size() {
+		if (mStarts != null) {
+			return mStarts.length;
+		}
+		return (int) (floorDiv(mEnd, mBucket) - floorDiv(mStart, mBucket) + 1);
+	}
+
+	/**
+	 * Returns the first value of section.
+	 */
+	int getSectionStart(int section) {
+		if (mStarts != null) {
+			return mStarts[section];
+		}
+		if (section == 0) {
+			return mStart;
+		}
+		return (int) ((floorDiv(mStart, mBucket) + section) * mBucket);
+	}
+
+	/**
+	 * Returns the label of section: its letter, or its first value.
+	 */
+	String getLabel(int section) {
+		if (mLabels != null) {
+			return mLabels[section];
+		}
+		return String.valueOf(getSectionStart(section));
+	}
+
+	/**
+	 * Returns the section value belongs to.
+	 */
+	int getSection(int value) {
+		if (mStarts == null) {
+			return (int) (floorDiv(value, mBucket) - floorDiv(mStart, mBucket));
+		}
+		int i = Arrays.binarySearch(mStarts, value);
+		return (i >= 0) ? i : Math.max(0, -i - 2);
+	}
+
+	private static int[] copyOf(int[] array, int length) {
+		int[] copy = new int[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		return copy;
+	}
+
+	private static String[] copyOf(String[] array, int length) {
+		String[] copy = new String[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		return copy;
+	}
+
+	private static long floorDiv(long value, long divisor) {
+		long q = value / divisor;
+		return (value % divisor < 0) ? q - 1 : q;
+	}
+}
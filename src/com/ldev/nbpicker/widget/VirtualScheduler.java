@@ -0,0 +1,206 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+/**
+ * A scheduler running its tasks against a virtual clock, which only moves
+ * forward when asked to (see {@link #advanceBy(long)}).
+ *
+ * Tasks due at the same time run in the order they were posted. Posting a
+ * task doesn't allocate anything once the queue has grown to its working
+ * size, so millions of ticks can be simulated quickly.
+ *
+ * This class is not thread safe.
+ */
+public class VirtualScheduler implements NumberPicker.Scheduler {
+
+	// binary heap of the scheduled tasks, ordered by time then by sequence
+	private long[] mTimes = new long[16];
+	private long[] mSequences = new long[16];
+	private Runnable[] mTasks = new Runnable[16];
+	private int mSize;
+
+	private long mNow;
+	private long mSequence;
+	private long mExecuted;
+
+	/**
+	 * Returns the current time of the virtual clock, in milliseconds.
+	 */
+	public long now() {
+		return mNow;
+	}
+
+	/**
+	 * Same as {@link #now()}: the clock of the transitions of the pickers
+	 * using this scheduler.
+	 */
+	@Override
+	public long uptimeMillis() {
+		return mNow;
+	}
+
+	/**
+	 * Returns the number of tasks run so far.
+	 */
+	public long getExecutedCount() {
+		return mExecuted;
+	}
+
+	/**
+	 * Returns the number of tasks waiting to be run.
+	 */
+	public int getPendingCount() {
+		return mSize;
+	}
+
+	@Override
+	public void postDelayed(Runnable task, long delay) {
+		if (mSize == mTasks.length) {
+			grow();
+		}
+		int i = mSize++;
+		long time = mNow + Math.max(0, delay);
+		long sequence = mSequence++;
+		// sift up
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!before(time, sequence, parent)) {
+				break;
+			}
+			set(i, mTimes[parent], mSequences[parent], mTasks[parent]);
+			i = parent;
+		}
+		set(i, time, sequence, task);
+	}
+
+	@Override
+	public void removeCallbacks(Runnable task) {
+		// keep the other tasks, then rebuild the heap
+		int size = 0;
+		for (int i = 0; i < mSize; i++) {
+			if (mTasks[i] != task) {
+				set(size++, mTimes[i], mSequences[i], mTasks[i]);
+			}
+		}
+		if (size == mSize) {
+			return;
+		}
+		for (int i = size; i < mSize; i++) {
+			mTasks[i] = null;
+		}
+		mSize = size;
+		for (int i = (size >>> 1) - 1; i >= 0; i--) {
+			siftDown(i, mTimes[i], mSequences[i], mTasks[i]);
+		}
+	}
+
+	/**
+	 * Moves the clock forward, running the tasks due meanwhile, including the
+	 * ones they post.
+	 *
+	 * @param millis
+	 *            the time to move forward, in milliseconds
+	 */
+	public void advanceBy(long millis) {
+		advanceTo(mNow + millis);
+	}
+
+	/**
+	 * Moves the clock forward to time, running the tasks due meanwhile,
+	 * including the ones they post.
+	 *
+	 * @param time
+	 *            the new time of the clock, in milliseconds
+	 */
+	public void advanceTo(long time) {
+		while (mSize > 0 && mTimes[0] <= time) {
+			Runnable task = mTasks[0];
+			mNow = mTimes[0];
+			removeFirst();
+			mExecuted++;
+			task.run();
+		}
+		if (time > mNow) {
+			mNow = time;
+		}
+	}
+
+	private boolean before(long time, long sequence, int i) {
+		return precedes(time, sequence, mTimes[i], mSequences[i]);
+	}
+
+	private static boolean precedes(long time, long sequence, long otherTime,
+			long otherSequence) {
+		return time < otherTime
+				|| (time == otherTime && sequence < otherSequence);
+	}
+
+	private void set(int i, long time, long sequence, Runnable task) {
+		mTimes[i] = time;
+		mSequences[i] = sequence;
+		mTasks[i] = task;
+	}
+
+	private void removeFirst() {
+		int last = --mSize;
+		Runnable task = mTasks[last];
+		mTasks[last] = null;
+		if (last > 0) {
+			// move the last task to the top, then down
+			siftDown(0, mTimes[last], mSequences[last], task);
+		}
+	}
+
+	/**
+	 * Moves the task down from i to its place among the children of i.
+	 *
+	 */
+	private void siftDown(int i, long time, long sequence, Runnable task) {
+		int half = mSize >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if (right < mSize
+					&& before(mTimes[right], mSequences[right], child)) {
+				child = right;
+			}
+			if (!precedes(mTimes[child], mSequences[child], time, sequence)) {
+				break;
+			}
+			set(i, mTimes[child], mSequences[child], mTasks[child]);
+			i = child;
+		}
+		set(i, time, sequence, task);
+	}
+
+	private void grow() {
+		int capacity = mTasks.length * 2;
+		long[] times = new long[capacity];
+		long[] sequences = new long[capacity];
+		Runnable[] tasks = new Runnable[capacity];
+		System.arraycopy(mTimes, 0, times, 0, mSize);
+		System.arraycopy(mSequences, 0, sequences, 0, mSize);
+		System.arraycopy(mTasks, 0, tasks, 0, mSize);
+		mTimes = times;
+		mSequences = sequences;
+		mTasks = tasks;
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import android.test.InstrumentationTestCase;
+import android.test.UiThreadTest;
+import android.text.Editable;
+import android.widget.EditText;
+
+public class DateTimePickerTest extends InstrumentationTestCase {
+
+	private DateTimePicker mPicker;
+	private int mCallbacks;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		mPicker = new DateTimePicker(getInstrumentation().getTargetContext());
+		mPicker.setDate(2021, 0, 31);
+		mPicker.setTime(12, 30);
+		mPicker.setOnChangeListener(new DateTimePicker.OnChangedListener() {
+			@Override
+			public void onChanged(DateTimePicker picker, int year, int month,
+					int day, int hour, int minute) {
+				mCallbacks++;
+			}
+		});
+	}
+
+	@UiThreadTest
+	public void testTypedMonthNumber() {
+		type(1, "3");
+		assertEquals(2, mPicker.getMonth());
+		type(1, "12");
+		assertEquals(11, mPicker.getMonth());
+		assertEquals(31, mPicker.getDayOfMonth());
+		assertEquals(2, mCallbacks);
+	}
+
+	@UiThreadTest
+	public void testMonthClampsDay() {
+		type(1, "2");
+		assertEquals(1, mPicker.getMonth());
+		assertEquals(28, mPicker.getDayOfMonth());
+		assertEquals(1, mCallbacks);
+	}
+
+	@UiThreadTest
+	public void testIncrementClampsDay() {
+		NumberPickerButton up = (NumberPickerButton) getPicker(1).getChildAt(0);
+		up.onClick(up);
+		assertEquals(1, mPicker.getMonth());
+		assertEquals(28, mPicker.getDayOfMonth());
+		assertEquals(1, mCallbacks);
+	}
+
+	@UiThreadTest
+	public void testYearClampsDay() {
+		mPicker.setDate(2020, 1, 29);
+		type(0, "2021");
+		assertEquals(2021, mPicker.getYear());
+		assertEquals(28, mPicker.getDayOfMonth());
+		assertEquals(1, mCallbacks);
+	}
+
+	@UiThreadTest
+	public void testYearRangeClampsDate() {
+		mPicker.setDate(2020, 1, 29);
+		mPicker.setYearRange(2021, 2030);
+		assertEquals(2021, mPicker.getYear());
+		assertEquals(1, mPicker.getMonth());
+		assertEquals(28, mPicker.getDayOfMonth());
+	}
+
+	/**
+	 * Types text in the field of a picker, then leaves it.
+	 */
+	private void type(int picker, String text) {
+		NumberPicker numberPicker = getPicker(picker);
+		Editable editable = ((EditText) numberPicker.getChildAt(1)).getText();
+		editable.clear();
+		for (int i = 0; i < text.length(); i++) {
+			editable.append(text.subSequence(i, i + 1));
+		}
+		assertEquals(text, editable.toString());
+		numberPicker.validateInput();
+	}
+
+	private NumberPicker getPicker(int picker) {
+		return (NumberPicker) mPicker.getChildAt(picker);
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.test.InstrumentationTestCase;
+import android.widget.EditText;
+
+/**
+ * Drives the transitions of a text field with a virtual clock.
+ */
+public class LabelTransitionTest extends InstrumentationTestCase {
+
+	private static final long DURATION = 200;
+
+	private EditText mText;
+	private VirtualScheduler mScheduler;
+	private LabelTransition mTransition;
+	private Canvas mCanvas;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		mText = new EditText(getInstrumentation().getTargetContext());
+		mText.layout(0, 0, 100, 50);
+		mScheduler = new VirtualScheduler();
+		mTransition = new LabelTransition(mText, mText, mScheduler);
+		mTransition.setDuration(DURATION);
+		mCanvas = new Canvas(Bitmap.createBitmap(100, 50,
+				Bitmap.Config.ARGB_8888));
+	}
+
+	public void testDuration() {
+		mTransition.start("1", "2", 1);
+		assertTrue(mTransition.isRunning());
+		assertTrue(mTransition.draw(mCanvas));
+		mScheduler.advanceBy(DURATION - 1);
+		assertTrue(mTransition.draw(mCanvas));
+		mScheduler.advanceBy(1);
+		assertFalse(mTransition.draw(mCanvas));
+		assertFalse(mTransition.isRunning());
+	}
+
+	public void testNotStarted() {
+		mTransition.start("1", "1", 1);
+		assertFalse(mTransition.isRunning());
+		mTransition.setDuration(0);
+		mTransition.start("1", "2", 1);
+		assertFalse(mTransition.isRunning());
+	}
+
+	public void testResizedBitmapRecycled() {
+		Bitmap bitmap = mTransition.getBitmap("1", 100, 50);
+		assertSame(bitmap, mTransition.getBitmap("1", 100, 50));
+		Bitmap resized = mTransition.getBitmap("1", 120, 50);
+		assertNotSame(bitmap, resized);
+		assertTrue(bitmap.isRecycled());
+		assertFalse(resized.isRecycled());
+	}
+
+	public void testDrawnBitmapKept() {
+		mTransition.start("1", "2", 1);
+		Bitmap from = mTransition.getBitmap("1", 100, 50);
+		Bitmap to = mTransition.getBitmap("2", 100, 50);
+		mTransition.getBitmap("1", 120, 50);
+		mTransition.getBitmap("2", 120, 50);
+		assertFalse(from.isRecycled());
+		assertFalse(to.isRecycled());
+		assertTrue(mTransition.draw(mCanvas));
+	}
+
+	public void testRelease() {
+		mTransition.start("1", "2", 1);
+		Bitmap from = mTransition.getBitmap("1", 100, 50);
+		mTransition.release();
+		assertFalse(mTransition.isRunning());
+		assertTrue(from.isRecycled());
+		assertNotSame(from, mTransition.getBitmap("1", 100, 50));
+	}
+}
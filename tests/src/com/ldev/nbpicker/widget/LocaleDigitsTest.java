@@ -0,0 +1,59 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import junit.framework.TestCase;
+
+import java.util.Locale;
+
+public class LocaleDigitsTest extends TestCase {
+
+	public void testWrite() {
+		LocaleDigits digits = LocaleDigits.get(Locale.ENGLISH);
+		assertEquals("0", write(digits, 0, 1));
+		assertEquals("-42", write(digits, -42, 1));
+		assertEquals(String.valueOf(Integer.MIN_VALUE),
+				write(digits, Integer.MIN_VALUE, 1));
+	}
+
+	public void testPaddedWrite() {
+		LocaleDigits digits = LocaleDigits.get(Locale.ENGLISH);
+		assertEquals("05", write(digits, 5, 2));
+		assertEquals("00", write(digits, 0, 2));
+		assertEquals("59", write(digits, 59, 2));
+		assertEquals("123", write(digits, 123, 2));
+		assertEquals("-007", write(digits, -7, 3));
+	}
+
+	public void testPaddedWriteWithLocaleZero() {
+		LocaleDigits digits = LocaleDigits.get(new Locale("ar", "EG"));
+		String padded = write(digits, 5, 2);
+		assertEquals(2, padded.length());
+		assertEquals(0, digits.digit(padded.charAt(0)));
+		assertEquals(write(digits, 0, 1).charAt(0), padded.charAt(0));
+		assertEquals(5, digits.parse(padded));
+	}
+
+	private static String write(LocaleDigits digits, int value, int minDigits) {
+		char[] buffer = new char[11];
+		int offset = digits.write(value, buffer, minDigits);
+		return new String(buffer, offset, buffer.length - offset);
+	}
+}
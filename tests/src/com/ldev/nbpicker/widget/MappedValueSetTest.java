@@ -0,0 +1,130 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import android.test.InstrumentationTestCase;
+import android.test.UiThreadTest;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Locale;
+
+public class MappedValueSetTest extends InstrumentationTestCase {
+
+	private static final String[] MONTHS = new String[] { "January",
+			"February", "March", "April", "May", "June", "July", "August",
+			"September", "October", "November", "December" };
+
+	private File mFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		mFile = new File(getInstrumentation().getTargetContext().getCacheDir(),
+				"values.npvs");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		mFile.delete();
+		super.tearDown();
+	}
+
+	public void testGet() throws Exception {
+		MappedValueSet values = write(MONTHS);
+		assertEquals(MONTHS.length, values.size());
+		for (int i = 0; i < MONTHS.length; i++) {
+			assertEquals(MONTHS[i], values.get(i));
+		}
+	}
+
+	public void testFindPrefixInDisplayOrder() throws Exception {
+		MappedValueSet values = write(MONTHS);
+		// July sorts before June, but June is displayed first
+		assertEquals("[5]", Arrays.toString(values.findPrefix("ju", 1)));
+		assertEquals("[5, 6]", Arrays.toString(values.findPrefix("ju", 5)));
+		assertEquals("[2, 4]", Arrays.toString(values.findPrefix("ma", 2)));
+		assertEquals("[0, 5, 6]", Arrays.toString(values.findPrefix("j", 3)));
+		assertEquals(0, values.findPrefix("x", 3).length);
+		assertEquals(0, values.findPrefix("ju", 0).length);
+	}
+
+	public void testHasPrefix() throws Exception {
+		MappedValueSet values = write(MONTHS);
+		assertTrue(values.hasPrefix("ju"));
+		assertTrue(values.hasPrefix("december"));
+		assertFalse(values.hasPrefix("decembers"));
+		assertFalse(values.hasPrefix("x"));
+	}
+
+	@UiThreadTest
+	public void testFindPrefixMatchesArrays() throws Exception {
+		// enough names for two levels of minimum indexes
+		String[] names = new String[5000];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = Integer.toString((i * 7919) % names.length, 36);
+		}
+		MappedValueSet mapped = write(names);
+		NumberPicker picker = new NumberPicker(getInstrumentation()
+				.getTargetContext());
+		picker.setRange(0, names.length - 1, names);
+		for (String prefix : new String[] { "", "1", "a", "r", "1a", "3u",
+				"zz" }) {
+			for (int max : new int[] { 1, 4, 100 }) {
+				int[] found = mapped.findPrefix(prefix, max);
+				assertEquals(prefix, Arrays.toString(picker.getMatches(
+						prefix, max)), Arrays.toString(found));
+			}
+			assertEquals(prefix, picker.getMatches(prefix, 1).length > 0,
+					mapped.hasPrefix(prefix));
+		}
+	}
+
+	public void testSections() throws Exception {
+		MappedValueSet values = write(new String[] { "April", "August",
+				"December", "february", "January", "" });
+		SectionIndex sections = SectionIndex.forValues(1, values);
+		assertEquals(5, sections.size());
+		assertEquals("A", sections.getLabel(0));
+		assertEquals("F", sections.getLabel(2));
+		assertEquals(" ", sections.getLabel(4));
+		assertEquals(4, sections.getSectionStart(2));
+		assertEquals(6, sections.getSectionStart(4));
+		assertEquals(0, sections.getSection(2));
+		assertEquals(3, sections.getSection(5));
+	}
+
+	public void testFindPrefixIgnoresDefaultLocale() throws Exception {
+		Locale locale = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try {
+			MappedValueSet values = write(new String[] { "Istanbul", "Izmir",
+					"Ankara" });
+			assertEquals("[0, 1]", Arrays.toString(values.findPrefix("i", 2)));
+		} finally {
+			Locale.setDefault(locale);
+		}
+	}
+
+	private MappedValueSet write(String[] values) throws Exception {
+		MappedValueSet.write(values, mFile);
+		return MappedValueSet.open(mFile);
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+public class NGramIndexTest extends TestCase {
+
+	private static final String[] QUERIES = new String[] { "e", "z", "america",
+			"paris", "new york", "amrica", "lndon", "pacific", "st", "xq" };
+
+	/**
+	 * Maximum average time of a query over 50000 labels, in nanoseconds.
+	 */
+	private static final long MAX_QUERY_NANOS = 1000000;
+
+	public void testContainsRanking() {
+		NGramIndex index = index("Paris", "Comparison", "Parisian", "Spa",
+				"Pa ris");
+		// at the start first, then the shorter
+		assertEquals("[0, 2, 1]",
+				Arrays.toString(index.searchContaining("paris", 5)));
+		assertEquals(0, index.bestContaining("PAR"));
+		assertTrue(index.hasContaining("son"));
+		assertFalse(index.hasContaining("sonp"));
+		assertEquals(-1, index.bestContaining("xyz"));
+		assertEquals(0, index.searchContaining("a", 0).length);
+	}
+
+	public void testContainsMatchesBruteForce() {
+		String[] labels = labels(3000);
+		NGramIndex index = index(labels);
+		for (String query : QUERIES) {
+			int[] expected = bruteForceContaining(labels, query, 10);
+			assertEquals(query, Arrays.toString(expected),
+					Arrays.toString(index.searchContaining(query, 10)));
+			assertEquals(query, (expected.length > 0) ? expected[0] : -1,
+					index.bestContaining(query));
+			assertEquals(query, expected.length > 0,
+					index.hasContaining(query));
+		}
+	}
+
+	public void testSimilarToleratesTypos() {
+		NGramIndex index = index("London", "Lisbon", "Paris", "America/Lima");
+		assertEquals(0, index.bestSimilar("lndon"));
+		assertEquals(2, index.bestSimilar("pars"));
+		assertEquals(3, index.bestSimilar("amrica"));
+		// too few shared grams
+		assertEquals(-1, index.bestSimilar("xyzon"));
+		assertEquals(0, index.searchSimilar("xyzond", 5).length);
+	}
+
+	public void testQueryLatency() {
+		NGramIndex index = index(labels(50000));
+		// warm up
+		for (int i = 0; i < 20; i++) {
+			query(index);
+		}
+		int runs = 20;
+		long begin = System.nanoTime();
+		for (int i = 0; i < runs; i++) {
+			query(index);
+		}
+		long nanos = (System.nanoTime() - begin) / (runs * QUERIES.length * 2);
+		assertTrue(nanos + "ns per query", nanos < MAX_QUERY_NANOS);
+	}
+
+	public void testIgnoresDefaultLocale() {
+		Locale locale = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try {
+			NGramIndex index = index("Istanbul", "Izmir", "Ankara");
+			// the shorter label first
+			assertEquals("[1, 0]",
+					Arrays.toString(index.searchContaining("i", 5)));
+			assertEquals(0, index.bestContaining("ISTAN"));
+			assertEquals(1, index.bestSimilar("izmr"));
+		} finally {
+			Locale.setDefault(locale);
+		}
+	}
+
+	private static void query(NGramIndex index) {
+		for (String query : QUERIES) {
+			index.searchContaining(query, 10);
+			index.searchSimilar(query, 10);
+		}
+	}
+
+	/**
+	 * Returns count labels looking like time zones, e.g. "America/New York 3".
+	 */
+	private static String[] labels(int count) {
+		String[] ids = TimeZone.getAvailableIDs();
+		String[] labels = new String[count];
+		for (int i = 0; i < count; i++) {
+			labels[i] = ids[i % ids.length].replace('_', ' ') + " "
+					+ (i / ids.length);
+		}
+		return labels;
+	}
+
+	private static int[] bruteForceContaining(final String[] labels,
+			final String query, int max) {
+		List<Integer> found = new ArrayList<Integer>();
+		for (int i = 0; i < labels.length; i++) {
+			if (labels[i].toLowerCase(Locale.ENGLISH).contains(query)) {
+				found.add(i);
+			}
+		}
+		Collections.sort(found, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer lhs, Integer rhs) {
+				String l = labels[lhs].toLowerCase(Locale.ENGLISH);
+				String r = labels[rhs].toLowerCase(Locale.ENGLISH);
+				int c = l.indexOf(query) - r.indexOf(query);
+				if (c == 0) {
+					c = l.length() - r.length();
+				}
+				return (c != 0) ? c : lhs - rhs;
+			}
+		});
+		int[] labelsFound = new int[Math.min(max, found.size())];
+		for (int i = 0; i < labelsFound.length; i++) {
+			labelsFound[i] = found.get(i);
+		}
+		return labelsFound;
+	}
+
+	static NGramIndex index(final String... values) {
+		return new NGramIndex(new NumberPicker.ValueSet() {
+			@Override
+			public int size() {
+				return values.length;
+			}
+
+			@Override
+			public String get(int index) {
+				return values[index];
+			}
+
+			@Override
+			public boolean hasPrefix(String prefix) {
+				return false;
+			}
+
+			@Override
+			public int[] findPrefix(String prefix, int max) {
+				return new int[0];
+			}
+		});
+	}
+}
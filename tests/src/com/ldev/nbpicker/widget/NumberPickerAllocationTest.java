@@ -0,0 +1,176 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import android.os.Debug;
+import android.test.InstrumentationTestCase;
+import android.test.UiThreadTest;
+import android.text.Editable;
+import android.widget.EditText;
+
+/**
+ * Counts the objects allocated by the steps of a NumberPicker, once its
+ * caches are warm, through increment(), taps and long presses of the +
+ * button.
+ *
+ * The Editable of a text field allocates while notifying its text watchers
+ * of a replacement. So the same replacements and selections are first made
+ * in a bare EditText: the picker must not allocate anything more.
+ */
+public class NumberPickerAllocationTest extends InstrumentationTestCase {
+
+	private static final int WARM_UP_STEPS = 200;
+	private static final int STEPS = 1000;
+	private static final long SPEED = 100;
+
+	/**
+	 * Steps the picker by one, count times.
+	 */
+	private abstract class Path {
+		abstract void step(int count);
+	}
+
+	private NumberPicker mPicker;
+	private EditText mBareText;
+	private VirtualScheduler mScheduler;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		mPicker = new NumberPicker(getInstrumentation().getTargetContext());
+		mPicker.setCircularity(true);
+		mPicker.setSpeed(SPEED);
+		mScheduler = new VirtualScheduler();
+		mPicker.setScheduler(mScheduler);
+		mBareText = new EditText(getInstrumentation().getTargetContext());
+	}
+
+	@UiThreadTest
+	public void testPlainSteps() {
+		mPicker.setRange(0, 99999);
+		assertStepAllocations();
+	}
+
+	@UiThreadTest
+	public void testFormattedSteps() {
+		mPicker.setFormatter(new NumberPicker.Formatter() {
+			@Override
+			public String toString(int value) {
+				return (value < 10) ? "0" + value : String.valueOf(value);
+			}
+		});
+		mPicker.setRange(0, 59);
+		assertStepAllocations();
+	}
+
+	@UiThreadTest
+	public void testDisplayedValuesSteps() {
+		mPicker.setRange(1, 12, new String[] { "January", "February", "March",
+				"April", "May", "June", "July", "August", "September",
+				"October", "November", "December" });
+		assertStepAllocations();
+	}
+
+	private void assertStepAllocations() {
+		assertPathAllocations("increment", new Path() {
+			@Override
+			void step(int count) {
+				for (int i = 0; i < count; i++) {
+					mPicker.increment(1);
+				}
+			}
+		}, false);
+
+		// onClick() validates the input, requests the focus then increments
+		final NumberPickerButton button = (NumberPickerButton) mPicker
+				.getChildAt(0);
+		assertPathAllocations("tap", new Path() {
+			@Override
+			void step(int count) {
+				for (int i = 0; i < count; i++) {
+					button.onClick(button);
+				}
+			}
+		}, true);
+
+		// the first step is done at once, the next ones every SPEED ms
+		assertPathAllocations("long press", new Path() {
+			@Override
+			void step(int count) {
+				button.onLongClick(button);
+				mScheduler.advanceBy((count - 1) * SPEED);
+				mPicker.cancelIncrement();
+			}
+		}, false);
+	}
+
+	/**
+	 * Checks path allocates as much as the same changes of a bare text field.
+	 *
+	 * @param focus
+	 *            whether path requests the focus of the text field
+	 */
+	private void assertPathAllocations(String name, Path path, boolean focus) {
+		path.step(WARM_UP_STEPS);
+
+		// the texts of the next steps, to replay them in the bare text field
+		int current = mPicker.getCurrent();
+		String[] texts = new String[STEPS];
+		for (int i = 0; i < STEPS; i++) {
+			mPicker.increment(1);
+			texts[i] = getText();
+		}
+		mPicker.setCurrent(current);
+		replay(texts, focus);
+
+		Debug.resetThreadAllocCount();
+		Debug.startAllocCounting();
+		replay(texts, focus);
+		Debug.stopAllocCounting();
+		int expected = Debug.getThreadAllocCount();
+
+		Debug.resetThreadAllocCount();
+		Debug.startAllocCounting();
+		path.step(STEPS);
+		Debug.stopAllocCounting();
+		int allocations = Debug.getThreadAllocCount();
+		assertEquals(name + ": allocations for " + STEPS + " steps",
+				expected, allocations);
+		assertEquals(name, texts[STEPS - 1], getText());
+	}
+
+	private String getText() {
+		return String.valueOf(((EditText) mPicker.getChildAt(1)).getText());
+	}
+
+	/**
+	 * Replaces the text of the bare text field as the picker does.
+	 */
+	private void replay(String[] texts, boolean focus) {
+		for (String text : texts) {
+			if (focus && !mBareText.hasFocus()) {
+				mBareText.requestFocus();
+			}
+			Editable editable = mBareText.getText();
+			editable.replace(0, editable.length(), text);
+			mBareText.setSelection(editable.length());
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.XmlResourceParser;
+import android.test.InstrumentationTestCase;
+import android.test.UiThreadTest;
+import android.util.AttributeSet;
+import android.util.Xml;
+import android.widget.EditText;
+
+import org.xmlpull.v1.XmlPullParser;
+
+import java.util.ArrayList;
+
+/**
+ * Configures pickers from the attributes of tests/res/layout/pickers.xml.
+ */
+public class PickerInflationTest extends InstrumentationTestCase {
+
+	/**
+	 * A NumberPicker counting the renders of its text, from its constructor.
+	 */
+	static class RenderCountingPicker extends NumberPicker {
+		// not initialized, as it is counted before the fields are
+		int mRenders;
+
+		RenderCountingPicker(Context context, AttributeSet attrs) {
+			super(context, attrs);
+		}
+
+		@Override
+		EditText createTextField(Context context) {
+			return new EditText(context) {
+				@Override
+				public void setSelection(int index) {
+					super.setSelection(index);
+					mRenders++;
+				}
+			};
+		}
+	}
+
+	private final ArrayList<XmlResourceParser> mParsers = new ArrayList<XmlResourceParser>();
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (XmlResourceParser parser : mParsers) {
+			parser.close();
+		}
+		mParsers.clear();
+		super.tearDown();
+	}
+
+	@UiThreadTest
+	public void testAttributes() throws Exception {
+		RenderCountingPicker picker = new RenderCountingPicker(getContext(),
+				getAttributes(0));
+		assertEquals(1, picker.mRenders);
+		assertEquals(15, picker.getCurrent());
+		assertEquals("15", getText(picker));
+		picker.increment(1);
+		assertEquals(20, picker.getCurrent());
+		picker.increment(1);
+		assertEquals(10, picker.getCurrent());
+	}
+
+	@UiThreadTest
+	public void testStyle() throws Exception {
+		RenderCountingPicker picker = new RenderCountingPicker(getContext(),
+				getAttributes(1));
+		assertEquals(1, picker.mRenders);
+		assertEquals(3, picker.getCurrent());
+		assertEquals("March", getText(picker));
+	}
+
+	public void testStyleIsCached() throws Exception {
+		PickerStyle style = PickerStyle.obtain(getContext(), getAttributes(1));
+		assertNotNull(style);
+		assertSame(style, PickerStyle.obtain(getContext(), getAttributes(2)));
+		// inline attributes are not cached
+		assertNotSame(PickerStyle.obtain(getContext(), getAttributes(0)),
+				PickerStyle.obtain(getContext(), getAttributes(0)));
+	}
+
+	private Context getContext() {
+		return getInstrumentation().getTargetContext();
+	}
+
+	/**
+	 * Returns the attributes of a picker of the layout, by its position.
+	 */
+	private AttributeSet getAttributes(int position) throws Exception {
+		Context context = getContext();
+		Resources resources = context.getResources();
+		XmlResourceParser parser = resources.getLayout(resources
+				.getIdentifier("pickers", "layout", context.getPackageName()));
+		mParsers.add(parser);
+		int found = -1;
+		int type;
+		while ((type = parser.next()) != XmlPullParser.END_DOCUMENT) {
+			if (type == XmlPullParser.START_TAG
+					&& NumberPicker.class.getName().equals(parser.getName())
+					&& ++found == position) {
+				return Xml.asAttributeSet(parser);
+			}
+		}
+		fail("no picker at " + position);
+		return null;
+	}
+
+	private static String getText(NumberPicker picker) {
+		return String.valueOf(((EditText) picker.getChildAt(1)).getText());
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import android.view.ViewConfiguration;
+
+/**
+ * Simulates the +/- buttons of a NumberPicker without any view, against a
+ * virtual clock.
+ *
+ * The steps are done, and repeated, by the same AutoRepeater as the
+ * NumberPicker ones, and the values are wrapped, or clamped, the same way. A
+ * whole touch sequence runs in the time needed to execute its steps, whatever
+ * its simulated duration.
+ */
+public class PickerSimulator {
+
+	private final VirtualScheduler mScheduler = new VirtualScheduler();
+	private final AutoRepeater mRepeater;
+
+	private final int mStart;
+	private final int mEnd;
+	private final boolean mCircular;
+	private int mCurrent;
+	private long mLongPressTimeout = ViewConfiguration.getLongPressTimeout();
+
+	private long mStepCount;
+	private long mChangeCount;
+
+	/**
+	 * Create a new simulator, whose current value is start.
+	 *
+	 * @param start
+	 *            the start of the range (inclusive)
+	 * @param end
+	 *            the end of the range (inclusive)
+	 * @param circular
+	 *            if the range is circular, or not
+	 */
+	public PickerSimulator(int start, int end, boolean circular) {
+		if (end < start) {
+			throw new IllegalArgumentException("end should be >= start");
+		}
+		mStart = start;
+		mEnd = end;
+		mCircular = circular;
+		mCurrent = start;
+		mRepeater = new AutoRepeater(new AutoRepeater.Target() {
+			@Override
+			public void repeat(int step) {
+				changeCurrent(mCurrent + step);
+			}
+		}, mScheduler);
+	}
+
+	/**
+	 * Set the current value.
+	 *
+	 * @throws IllegalArgumentException
+	 *             when current is not within the range
+	 */
+	public void setCurrent(int current) {
+		if (current < mStart || current > mEnd) {
+			throw new IllegalArgumentException(
+					"current should be >= start and <= end");
+		}
+		mCurrent = current;
+	}
+
+	/**
+	 * Sets the value added or removed by each step, like
+	 * {@link NumberPicker#setStep(int)}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             when step is not positive
+	 */
+	public void setStep(int step) {
+		if (step <= 0) {
+			throw new IllegalArgumentException("step should be > 0");
+		}
+		mRepeater.setStepSize(step);
+	}
+
+	/**
+	 * Sets the speed (in milliseconds) at which the steps are repeated while a
+	 * button is pressed, like {@link NumberPicker#setSpeed(long)}.
+	 */
+	public void setSpeed(long speed) {
+		mRepeater.setSpeed(speed);
+	}
+
+	/**
+	 * Sets the duration (in milliseconds) a button must be pressed to start
+	 * repeating the steps, the long press timeout of the platform by default.
+	 */
+	public void setLongPressTimeout(long timeout) {
+		mLongPressTimeout = timeout;
+	}
+
+	/**
+	 * Returns the scheduler the steps are repeated with, e.g. to read its
+	 * clock.
+	 */
+	public VirtualScheduler getScheduler() {
+		return mScheduler;
+	}
+
+	/**
+	 * Taps a button: the value is stepped once.
+	 *
+	 * @param direction
+	 *            1 for the + button, -1 for the - one
+	 */
+	public void tap(int direction) {
+		mRepeater.step(direction);
+	}
+
+	/**
+	 * Presses a button during duration milliseconds. A press shorter than the
+	 * long press timeout is a tap, done when the button is released. Otherwise
+	 * the steps are repeated from the long press timeout, the ones due when the
+	 * button is released included.
+	 *
+	 * @param direction
+	 *            1 for the + button, -1 for the - one
+	 * @param duration
+	 *            how long the button is pressed
+	 */
+	public void press(int direction, long duration) {
+		if (duration < mLongPressTimeout) {
+			mScheduler.advanceBy(duration);
+			mRepeater.step(direction);
+		} else {
+			mScheduler.advanceBy(mLongPressTimeout);
+			mRepeater.start(direction);
+			mScheduler.advanceBy(duration - mLongPressTimeout);
+			mRepeater.cancel();
+		}
+	}
+
+	/**
+	 * Lets the time pass without touching anything.
+	 */
+	public void idle(long duration) {
+		mScheduler.advanceBy(duration);
+	}
+
+	public int getCurrent() {
+		return mCurrent;
+	}
+
+	/**
+	 * Returns the number of steps done, including the ones leaving the value
+	 * unchanged at the bounds of a non circular range.
+	 */
+	public long getStepCount() {
+		return mStepCount;
+	}
+
+	/**
+	 * Returns the number of times the value changed, i.e. the number of times
+	 * a NumberPicker would have notified its listener.
+	 */
+	public long getChangeCount() {
+		return mChangeCount;
+	}
+
+	/**
+	 * Same as NumberPicker.changeCurrent(), without the view.
+	 */
+	private void changeCurrent(int current) {
+		mStepCount++;
+		current = NumberPicker.wrap(current, mStart, mEnd, mCircular);
+		if (current != mCurrent) {
+			mCurrent = current;
+			mChangeCount++;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import android.test.InstrumentationTestCase;
+import android.test.UiThreadTest;
+
+public class PickerSimulatorTest extends InstrumentationTestCase {
+
+	/**
+	 * Long press timeout of the simulators, whatever the platform one.
+	 */
+	private static final long LONG_PRESS_TIMEOUT = 500;
+
+	public void testTaps() {
+		PickerSimulator simulator = simulator(0, 2, false);
+		simulator.tap(1);
+		simulator.tap(1);
+		simulator.tap(1);
+		simulator.tap(-1);
+		assertCounts(simulator, 1, 4, 3);
+	}
+
+	public void testShortPressIsATap() {
+		PickerSimulator simulator = simulator(0, 10, false);
+		simulator.press(1, 499);
+		assertCounts(simulator, 1, 1, 1);
+		assertEquals(499, simulator.getScheduler().now());
+	}
+
+	public void testLongPressClamped() {
+		PickerSimulator simulator = simulator(0, 10, false);
+		simulator.setSpeed(100);
+		// steps at 500, 600, ..., 1000
+		simulator.press(1, 1000);
+		assertCounts(simulator, 6, 6, 6);
+		// steps at 1500, 1600, ..., 3000, the last 12 ones at the end
+		simulator.press(1, 2000);
+		assertCounts(simulator, 10, 22, 10);
+		simulator.idle(1000);
+		assertCounts(simulator, 10, 22, 10);
+		assertEquals(0, simulator.getScheduler().getPendingCount());
+	}
+
+	public void testLongPressCircular() {
+		PickerSimulator simulator = simulator(0, 9, true);
+		simulator.setSpeed(100);
+		// 1, ..., 9, 0, 1, 2, 3: steps at 500, 600, ..., 1700
+		simulator.press(1, 1700);
+		assertCounts(simulator, 3, 13, 13);
+		// 2, 1, 0, 9: steps at 2200, ..., 2500
+		simulator.press(-1, 800);
+		assertCounts(simulator, 9, 17, 17);
+	}
+
+	public void testStepSizeClamped() {
+		PickerSimulator simulator = simulator(0, 10, false);
+		simulator.setStep(3);
+		simulator.setSpeed(100);
+		// 3, 6, 9, 10, 10: steps at 500, ..., 900
+		simulator.press(1, 900);
+		assertCounts(simulator, 10, 5, 4);
+		simulator.tap(-1);
+		assertCounts(simulator, 7, 6, 5);
+	}
+
+	public void testStepSizeCircular() {
+		PickerSimulator simulator = simulator(0, 9, true);
+		simulator.setStep(3);
+		simulator.tap(1);
+		simulator.tap(1);
+		simulator.tap(1);
+		// 12 is past the end: back to the start
+		simulator.tap(1);
+		assertCounts(simulator, 0, 4, 4);
+		// -3 is before the start: to the end
+		simulator.tap(-1);
+		assertCounts(simulator, 9, 5, 5);
+	}
+
+	public void testInvalidStep() {
+		try {
+			new PickerSimulator(0, 9, true).setStep(0);
+			fail("step 0 accepted");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@UiThreadTest
+	public void testSameStepsAsNumberPicker() {
+		PickerSimulator simulator = simulator(0, 20, false);
+		simulator.setStep(3);
+		simulator.setSpeed(100);
+		simulator.press(1, LONG_PRESS_TIMEOUT + 1000);
+
+		VirtualScheduler scheduler = new VirtualScheduler();
+		NumberPicker picker = new NumberPicker(getInstrumentation()
+				.getTargetContext());
+		picker.setRange(0, 20);
+		picker.setStep(3);
+		picker.setSpeed(100);
+		picker.setScheduler(scheduler);
+		final int[] changes = new int[1];
+		picker.setOnChangeListener(new NumberPicker.OnChangedListener() {
+			@Override
+			public void onChanged(NumberPicker picker, int oldVal, int newVal) {
+				changes[0]++;
+			}
+		});
+		picker.startIncrement(1);
+		scheduler.advanceBy(1000);
+		picker.cancelIncrement();
+
+		// 3, 6, ..., 18, 20, then 4 steps at the end
+		assertCounts(simulator, 20, 11, 7);
+		assertEquals(simulator.getCurrent(), picker.getCurrent());
+		assertEquals(simulator.getChangeCount(), changes[0]);
+		assertEquals(simulator.getScheduler().getExecutedCount(),
+				scheduler.getExecutedCount());
+	}
+
+	private static PickerSimulator simulator(int start, int end,
+			boolean circular) {
+		PickerSimulator simulator = new PickerSimulator(start, end, circular);
+		simulator.setLongPressTimeout(LONG_PRESS_TIMEOUT);
+		return simulator;
+	}
+
+	private static void assertCounts(PickerSimulator simulator, int current,
+			long steps, long changes) {
+		assertEquals("current", current, simulator.getCurrent());
+		assertEquals("steps", steps, simulator.getStepCount());
+		assertEquals("changes", changes, simulator.getChangeCount());
+	}
+}
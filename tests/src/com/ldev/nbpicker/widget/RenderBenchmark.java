@@ -0,0 +1,451 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.text.Editable;
+import android.text.InputFilter;
+import android.view.View.MeasureSpec;
+import android.widget.EditText;
+
+/**
+ * Measures the UI work done by NumberPickers for each value change: layout
+ * requests and invalidations, measure, layout and draw passes and time, per
+ * step of the +/- buttons and per typed character.
+ *
+ * After each change, a frame is emulated: the picker is measured and laid out
+ * if it requested it, then drawn into a bitmap. The same text changes are
+ * made directly in the text field of a baseline picker, so the cost of the
+ * text field itself is known: a picker must not request more layouts or
+ * invalidations than its baseline. It must run on the UI thread:
+ * {@link RenderBenchmarkTest} fails when
+ * {@link #runSuite(Context, int, Thresholds)} reports a regression.
+ */
+public class RenderBenchmark {
+
+	/**
+	 * A NumberPicker counting its layout requests, its invalidations and the
+	 * ones of its text field, and its measure, layout and draw passes.
+	 */
+	public static class CountingNumberPicker extends NumberPicker {
+		private RenderStats mStats;
+
+		public CountingNumberPicker(Context context) {
+			super(context);
+		}
+
+		/**
+		 * Sets the counters, or null to stop counting.
+		 */
+		public void setRenderStats(RenderStats stats) {
+			mStats = stats;
+		}
+
+		@Override
+		EditText createTextField(Context context) {
+			return new EditText(context) {
+				@Override
+				public void invalidate() {
+					super.invalidate();
+					countInvalidation(1);
+				}
+
+				@Override
+				public void invalidate(Rect dirty) {
+					super.invalidate(dirty);
+					countInvalidation(1);
+				}
+
+				@Override
+				public void invalidate(int l, int t, int r, int b) {
+					super.invalidate(l, t, r, b);
+					countInvalidation(1);
+				}
+			};
+		}
+
+		private void countInvalidation(int count) {
+			if (mStats != null) {
+				mStats.mInvalidations += count;
+			}
+		}
+
+		@Override
+		public void requestLayout() {
+			super.requestLayout();
+			if (mStats != null) {
+				mStats.mLayoutRequests++;
+			}
+		}
+
+		@Override
+		public void invalidate() {
+			super.invalidate();
+			countInvalidation(1);
+		}
+
+		@Override
+		public void invalidate(Rect dirty) {
+			super.invalidate(dirty);
+			countInvalidation(1);
+		}
+
+		@Override
+		public void invalidate(int l, int t, int r, int b) {
+			super.invalidate(l, t, r, b);
+			countInvalidation(1);
+		}
+
+		@Override
+		protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+			super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+			if (mStats != null) {
+				mStats.mMeasures++;
+			}
+		}
+
+		@Override
+		protected void onLayout(boolean changed, int l, int t, int r, int b) {
+			super.onLayout(changed, l, t, r, b);
+			if (mStats != null) {
+				mStats.mLayouts++;
+			}
+		}
+
+		@Override
+		protected void dispatchDraw(Canvas canvas) {
+			super.dispatchDraw(canvas);
+			if (mStats != null) {
+				mStats.mDraws++;
+			}
+		}
+
+		/**
+		 * Returns the text field, to type in it as the user would.
+		 */
+		EditText getTextField() {
+			return (EditText) getChildAt(1);
+		}
+	}
+
+	/**
+	 * Maximum cost allowed per value change, above the baseline.
+	 */
+	public static class Thresholds {
+		/**
+		 * No layout request nor invalidation above the baseline, no time
+		 * limit.
+		 */
+		public static final Thresholds DEFAULT = new Thresholds(0, 0, 0);
+
+		final double mLayoutRequests;
+		final double mInvalidations;
+		final double mMicros;
+
+		/**
+		 * @param layoutRequests
+		 *            the maximum number of layout requests per change above
+		 *            the baseline
+		 * @param invalidations
+		 *            the maximum number of invalidations per change above the
+		 *            baseline
+		 * @param micros
+		 *            the maximum time per change, frame included, in
+		 *            microseconds, or 0 for no limit
+		 */
+		public Thresholds(double layoutRequests, double invalidations,
+				double micros) {
+			mLayoutRequests = layoutRequests;
+			mInvalidations = invalidations;
+			mMicros = micros;
+		}
+	}
+
+	/**
+	 * The cost of a number of value changes, and the one of the same text
+	 * changes made directly in a text field.
+	 */
+	public static class Result {
+		private final String mName;
+		private final int mChanges;
+		private final RenderStats mStats;
+		private final RenderStats mBaseline;
+		private final long mNanos;
+
+		Result(String name, int changes, RenderStats stats,
+				RenderStats baseline, long nanos) {
+			mName = name;
+			mChanges = Math.max(1, changes);
+			mStats = stats;
+			mBaseline = baseline;
+			mNanos = nanos;
+		}
+
+		public String getName() {
+			return mName;
+		}
+
+		public RenderStats getStats() {
+			return mStats;
+		}
+
+		public RenderStats getBaseline() {
+			return mBaseline;
+		}
+
+		public double getLayoutRequestsPerChange() {
+			return (double) mStats.getLayoutRequestCount() / mChanges;
+		}
+
+		public double getInvalidationsPerChange() {
+			return (double) mStats.getInvalidationCount() / mChanges;
+		}
+
+		public double getBaselineLayoutRequestsPerChange() {
+			return (double) mBaseline.getLayoutRequestCount() / mChanges;
+		}
+
+		public double getBaselineInvalidationsPerChange() {
+			return (double) mBaseline.getInvalidationCount() / mChanges;
+		}
+
+		public double getMeasuresPerChange() {
+			return (double) mStats.getMeasureCount() / mChanges;
+		}
+
+		public double getLayoutsPerChange() {
+			return (double) mStats.getLayoutCount() / mChanges;
+		}
+
+		public double getDrawsPerChange() {
+			return (double) mStats.getDrawCount() / mChanges;
+		}
+
+		/**
+		 * Returns the time per change, frame included, in microseconds.
+		 */
+		public double getMicrosPerChange() {
+			return mNanos / 1000.0 / mChanges;
+		}
+
+		/**
+		 * Checks the cost per change is within thresholds.
+		 *
+		 * @throws AssertionError
+		 *             when a threshold is exceeded
+		 */
+		public void check(Thresholds thresholds) {
+			double layoutRequests = getLayoutRequestsPerChange()
+					- getBaselineLayoutRequestsPerChange();
+			double invalidations = getInvalidationsPerChange()
+					- getBaselineInvalidationsPerChange();
+			if (layoutRequests > thresholds.mLayoutRequests
+					|| invalidations > thresholds.mInvalidations
+					|| (thresholds.mMicros > 0
+							&& getMicrosPerChange() > thresholds.mMicros)) {
+				throw new AssertionError("render cost regression: " + this);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return mName + ": " + getLayoutRequestsPerChange()
+					+ " layout requests (baseline "
+					+ getBaselineLayoutRequestsPerChange() + "), "
+					+ getInvalidationsPerChange() + " invalidations (baseline "
+					+ getBaselineInvalidationsPerChange() + "), "
+					+ getMeasuresPerChange() + " measures, "
+					+ getLayoutsPerChange() + " layouts, "
+					+ getDrawsPerChange() + " draws, " + getMicrosPerChange()
+					+ "us per change";
+		}
+	}
+
+	private final int mWidthSpec;
+	private final int mHeightSpec;
+	private final Canvas mCanvas;
+	private final CountingNumberPicker mBaseline;
+
+	/**
+	 * @param context
+	 *            the application environment
+	 * @param width
+	 *            the width available to the pickers, in pixels
+	 * @param height
+	 *            the height available to the pickers, in pixels
+	 */
+	public RenderBenchmark(Context context, int width, int height) {
+		mWidthSpec = MeasureSpec.makeMeasureSpec(width, MeasureSpec.AT_MOST);
+		mHeightSpec = MeasureSpec.makeMeasureSpec(height, MeasureSpec.AT_MOST);
+		mCanvas = new Canvas(Bitmap.createBitmap(width, height,
+				Bitmap.Config.ARGB_8888));
+		mBaseline = new CountingNumberPicker(context);
+		// its text field is only edited directly
+		mBaseline.getTextField().setFilters(new InputFilter[0]);
+	}
+
+	/**
+	 * Measures steps increments of picker.
+	 */
+	public Result benchmarkIncrements(String name,
+			CountingNumberPicker picker, int steps) {
+		EditText field = picker.getTextField();
+		EditText baselineField = mBaseline.getTextField();
+		replace(baselineField, field.getText());
+		frame(picker);
+		frame(mBaseline);
+
+		RenderStats stats = start(picker);
+		RenderStats baseline = start(mBaseline);
+		long nanos = 0;
+		for (int i = 0; i < steps; i++) {
+			long begin = System.nanoTime();
+			picker.increment(1);
+			frame(picker);
+			nanos += System.nanoTime() - begin;
+
+			replace(baselineField, field.getText().toString());
+			frame(mBaseline);
+		}
+		return finish(name, picker, steps, stats, baseline, nanos);
+	}
+
+	/**
+	 * Measures typing text, one character at a time, in the empty text field
+	 * of picker.
+	 */
+	public Result benchmarkTyping(String name, CountingNumberPicker picker,
+			CharSequence text) {
+		EditText field = picker.getTextField();
+		EditText baselineField = mBaseline.getTextField();
+		field.getText().clear();
+		baselineField.getText().clear();
+		frame(picker);
+		frame(mBaseline);
+
+		RenderStats stats = start(picker);
+		RenderStats baseline = start(mBaseline);
+		long nanos = 0;
+		for (int i = 0; i < text.length(); i++) {
+			CharSequence typed = text.subSequence(i, i + 1);
+			long begin = System.nanoTime();
+			field.append(typed);
+			frame(picker);
+			nanos += System.nanoTime() - begin;
+
+			baselineField.append(typed);
+			frame(mBaseline);
+		}
+		Result result = finish(name, picker, text.length(), stats, baseline,
+				nanos);
+		picker.validateInput();
+		return result;
+	}
+
+	/**
+	 * Benchmarks plain, formatted and displayed values pickers, increments
+	 * and typing, and checks each result.
+	 *
+	 * @param context
+	 *            the application environment
+	 * @param steps
+	 *            the number of increments of each picker
+	 * @param thresholds
+	 *            the maximum cost allowed
+	 * @return the results
+	 * @throws AssertionError
+	 *             when a result exceeds the thresholds
+	 */
+	public static Result[] runSuite(Context context, int steps,
+			Thresholds thresholds) {
+		RenderBenchmark benchmark = new RenderBenchmark(context, 480, 800);
+
+		CountingNumberPicker plain = new CountingNumberPicker(context);
+		plain.setRange(0, 99999);
+		plain.setCircularity(true);
+
+		CountingNumberPicker formatted = new CountingNumberPicker(context);
+		formatted.setFormatter(new NumberPicker.Formatter() {
+			@Override
+			public String toString(int value) {
+				return (value < 10) ? "0" + value : String.valueOf(value);
+			}
+		});
+		formatted.setRange(0, 59);
+		formatted.setCircularity(true);
+
+		CountingNumberPicker displayed = new CountingNumberPicker(context);
+		displayed.setRange(1, 12, new String[] { "January", "February",
+				"March", "April", "May", "June", "July", "August",
+				"September", "October", "November", "December" });
+		displayed.setCircularity(true);
+
+		Result[] results = new Result[] {
+				benchmark.benchmarkIncrements("plain increments", plain, steps),
+				benchmark.benchmarkTyping("plain typing", plain, "12345"),
+				benchmark.benchmarkIncrements("formatted increments",
+						formatted, steps),
+				benchmark.benchmarkTyping("formatted typing", formatted, "42"),
+				benchmark.benchmarkIncrements("displayed increments",
+						displayed, steps),
+				benchmark.benchmarkTyping("displayed typing", displayed, "Sept") };
+		for (Result result : results) {
+			result.check(thresholds);
+		}
+		return results;
+	}
+
+	private static RenderStats start(CountingNumberPicker picker) {
+		RenderStats stats = new RenderStats();
+		picker.setRenderStats(stats);
+		return stats;
+	}
+
+	private Result finish(String name, CountingNumberPicker picker,
+			int changes, RenderStats stats, RenderStats baseline, long nanos) {
+		picker.setRenderStats(null);
+		mBaseline.setRenderStats(null);
+		return new Result(name, changes, stats, baseline, nanos);
+	}
+
+	/**
+	 * Replaces the text of field as NumberPicker.updateView() does.
+	 */
+	private static void replace(EditText field, CharSequence text) {
+		Editable editable = field.getText();
+		editable.replace(0, editable.length(), text);
+		field.setSelection(editable.length());
+	}
+
+	/**
+	 * Emulates a frame: measures and lays out picker if needed, and draws it.
+	 */
+	private void frame(NumberPicker picker) {
+		if (picker.isLayoutRequested()) {
+			picker.measure(mWidthSpec, mHeightSpec);
+			picker.layout(0, 0, picker.getMeasuredWidth(),
+					picker.getMeasuredHeight());
+		}
+		picker.draw(mCanvas);
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import android.test.InstrumentationTestCase;
+import android.test.UiThreadTest;
+
+/**
+ * Fails when the render cost of the pickers exceeds the default thresholds of
+ * {@link RenderBenchmark}.
+ */
+public class RenderBenchmarkTest extends InstrumentationTestCase {
+
+	private static final int STEPS = 500;
+
+	@UiThreadTest
+	public void testRenderCost() {
+		// throws an AssertionError naming the first result over a threshold
+		RenderBenchmark.runSuite(getInstrumentation().getTargetContext(),
+				STEPS, RenderBenchmark.Thresholds.DEFAULT);
+	}
+
+	public void testCheckFailsAboveBaseline() {
+		RenderStats baseline = new RenderStats();
+		baseline.mLayoutRequests = 10;
+		baseline.mInvalidations = 20;
+		RenderStats stats = new RenderStats();
+		stats.mLayoutRequests = 10;
+		stats.mInvalidations = 20;
+		new RenderBenchmark.Result("equal", 10, stats, baseline, 0)
+				.check(RenderBenchmark.Thresholds.DEFAULT);
+
+		stats.mLayoutRequests = 11;
+		assertCheckFails(new RenderBenchmark.Result("layout", 10, stats,
+				baseline, 0));
+		stats.mLayoutRequests = 10;
+		stats.mInvalidations = 21;
+		assertCheckFails(new RenderBenchmark.Result("invalidation", 10, stats,
+				baseline, 0));
+	}
+
+	private static void assertCheckFails(RenderBenchmark.Result result) {
+		try {
+			result.check(RenderBenchmark.Thresholds.DEFAULT);
+		} catch (AssertionError e) {
+			return;
+		}
+		fail(result + " passed");
+	}
+}
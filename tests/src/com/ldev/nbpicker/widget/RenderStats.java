@@ -0,0 +1,89 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+/**
+ * Counts the UI work done by a NumberPicker and its text field: layout
+ * requests and invalidations, and measure, layout and draw passes.
+ *
+ * See {@link RenderBenchmark.CountingNumberPicker}.
+ */
+public class RenderStats {
+
+	int mLayoutRequests;
+	int mInvalidations;
+	int mMeasures;
+	int mLayouts;
+	int mDraws;
+
+	/**
+	 * Sets all the counters back to zero.
+	 */
+	public void reset() {
+		mLayoutRequests = 0;
+		mInvalidations = 0;
+		mMeasures = 0;
+		mLayouts = 0;
+		mDraws = 0;
+	}
+
+	/**
+	 * Returns the number of layout requests reaching the picker.
+	 */
+	public int getLayoutRequestCount() {
+		return mLayoutRequests;
+	}
+
+	/**
+	 * Returns the number of invalidations of the picker and of its text
+	 * field.
+	 */
+	public int getInvalidationCount() {
+		return mInvalidations;
+	}
+
+	/**
+	 * Returns the number of measure passes of the picker.
+	 */
+	public int getMeasureCount() {
+		return mMeasures;
+	}
+
+	/**
+	 * Returns the number of layout passes of the picker.
+	 */
+	public int getLayoutCount() {
+		return mLayouts;
+	}
+
+	/**
+	 * Returns the number of times the picker drew its children.
+	 */
+	public int getDrawCount() {
+		return mDraws;
+	}
+
+	@Override
+	public String toString() {
+		return "layoutRequests=" + mLayoutRequests + " invalidations="
+				+ mInvalidations + " measures=" + mMeasures + " layouts="
+				+ mLayouts + " draws=" + mDraws;
+	}
+}
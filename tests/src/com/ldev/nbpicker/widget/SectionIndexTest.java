@@ -0,0 +1,93 @@
+/*
+ *  Android Libraries contains useful classes for the Android applications
+ *  development.
+ *  Copyright (C) 2011  Luc Chante <luc.chante@gmail.com>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.ldev.nbpicker.widget;
+
+import junit.framework.TestCase;
+
+public class SectionIndexTest extends TestCase {
+
+	public void testPowerOfTenRanges() {
+		assertSections(0, 9999, 10, 1000);
+		assertSections(0, 99999, 10, 10000);
+		assertSections(0, 99, 10, 10);
+	}
+
+	public void testRangeFromOne() {
+		// 1-9, 10-19, ..., 90-99, 100
+		assertSections(1, 100, 11, 10);
+	}
+
+	public void testSmallRanges() {
+		assertSections(0, 59, 60, 1);
+		assertSections(5, 5, 1, 1);
+	}
+
+	public void testNegativeRange() {
+		SectionIndex sections = SectionIndex.forRange(-50, 49);
+		assertEquals(10, sections.size());
+		assertEquals(-50, sections.getSectionStart(0));
+		assertEquals(-40, sections.getSectionStart(1));
+		assertEquals(0, sections.getSection(-41));
+		assertEquals(1, sections.getSection(-40));
+	}
+
+	public void testDisplayedValues() {
+		final String[] months = new String[] { "April", "August",
+				"December", "February", "January" };
+		SectionIndex sections = SectionIndex.forValues(1,
+				new NumberPicker.ValueSet() {
+					@Override
+					public int size() {
+						return months.length;
+					}
+
+					@Override
+					public String get(int index) {
+						return months[index];
+					}
+
+					@Override
+					public boolean hasPrefix(String prefix) {
+						return false;
+					}
+
+					@Override
+					public int[] findPrefix(String prefix, int max) {
+						return new int[0];
+					}
+				});
+		assertEquals(4, sections.size());
+		assertEquals("A", sections.getLabel(0));
+		assertEquals(3, sections.getSectionStart(1));
+		assertEquals(0, sections.getSection(2));
+		assertEquals(3, sections.getSection(5));
+	}
+
+	private static void assertSections(int start, int end, int count,
+			int bucket) {
+		SectionIndex sections = SectionIndex.forRange(start, end);
+		assertEquals(start + ".." + end, count, sections.size());
+		assertEquals(start, sections.getSectionStart(0));
+		if (count > 1) {
+			assertEquals(((start / bucket) + 1) * bucket,
+					sections.getSectionStart(1));
+		}
+	}
+}